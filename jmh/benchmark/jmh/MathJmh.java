@@ -0,0 +1,106 @@
+package benchmark.jmh;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+import math.Twist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import subsystems.Kinematics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the math and kinematics part of {@link benchmark.MathBenchmarks}.
+ *
+ * Inputs are drawn from small precomputed tables so the JIT can't constant fold the work.
+ * Run with -prof gc for the allocation rate next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathJmh {
+
+    private static final int kInputs = 1024;
+    private static final int kMask = kInputs - 1;
+
+    private final Rotation[] rotations = new Rotation[kInputs];
+    private final RigidTransform[] transforms = new RigidTransform[kInputs];
+    private final Twist[] twists = new Twist[kInputs];
+    private final double[] left = new double[kInputs];
+    private final double[] right = new double[kInputs];
+    private final RigidTransform out = new RigidTransform();
+    private int index;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(254);
+        for (int i = 0; i < kInputs; i++){
+            rotations[i] = Rotation.fromRadians(random.nextDouble() * 2 * Math.PI);
+            transforms[i] = new RigidTransform(new Translation(random.nextDouble() * 10, random.nextDouble() * 10), rotations[i]);
+            twists[i] = new Twist(random.nextDouble() * 0.1, 0, (random.nextDouble() - 0.5) * 0.1);
+            left[i] = random.nextDouble() * 0.1;
+            right[i] = random.nextDouble() * 0.1;
+        }
+    }
+
+    private int next(){
+        return index++ & kMask;
+    }
+
+    @Benchmark
+    public Rotation rotationRotate(){
+        int i = next();
+        return rotations[i].rotate(rotations[(i + 1) & kMask]);
+    }
+
+    @Benchmark
+    public RigidTransform rigidTransformTransform(){
+        int i = next();
+        return transforms[i].transform(transforms[(i + 1) & kMask]);
+    }
+
+    @Benchmark
+    public RigidTransform rigidTransformTransformInto(){
+        int i = next();
+        return transforms[i].transformInto(transforms[(i + 1) & kMask], out);
+    }
+
+    @Benchmark
+    public RigidTransform rigidTransformExp(){
+        return RigidTransform.exp(twists[next()]);
+    }
+
+    @Benchmark
+    public RigidTransform rigidTransformExpInto(){
+        return RigidTransform.expInto(twists[next()], out);
+    }
+
+    @Benchmark
+    public Twist rigidTransformLog(){
+        return RigidTransform.log(transforms[next()]);
+    }
+
+    @Benchmark
+    public Twist forwardKinematics(){
+        int i = next();
+        return Kinematics.forwardKinematics(left[i], right[i]);
+    }
+
+    @Benchmark
+    public Kinematics.DriveVelocity inverseKinematics(){
+        return Kinematics.inverseKinematics(twists[next()], 2.4);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark.jmh;
+
+import math.RigidTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import subsystems.PoseEstimate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PoseEstimate#update(double, double, double, double)} with wheel distances and gyro angles from a
+ * precomputed table, allocating and in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OdometryJmh {
+
+    private static final int kInputs = 1024;
+    private static final int kMask = kInputs - 1;
+
+    @Param({"false", "true"})
+    public boolean inPlace;
+
+    private final double[] left = new double[kInputs];
+    private final double[] right = new double[kInputs];
+    private final double[] angles = new double[kInputs];
+    private PoseEstimate poseEstimate;
+    private double leftDistance, rightDistance, time;
+    private int index;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(254);
+        for (int i = 0; i < kInputs; i++){
+            left[i] = random.nextDouble() * 0.1;
+            right[i] = random.nextDouble() * 0.1;
+            angles[i] = (random.nextDouble() - 0.5) * 360;
+        }
+        poseEstimate = new PoseEstimate(inPlace);
+    }
+
+    @Benchmark
+    public RigidTransform poseEstimateUpdate(){
+        int i = index++ & kMask;
+        leftDistance += left[i];
+        rightDistance += right[i];
+        time += 0.005;
+        poseEstimate.update(time, leftDistance, rightDistance, angles[i]);
+        return poseEstimate.getPose();
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import trajectory.Trajectory;
+import trajectory.TrajectoryGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TrajectoryGenerator#generateTrajectory(double, double, double)} over the same sweep of distances and dt
+ * values as {@link benchmark.TrajectoryBenchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrajectoryJmh {
+
+    @Param({"10", "100", "1000"})
+    public double distance;
+
+    @Param({"0.01", "0.005", "0.001"})
+    public double dt;
+
+    private TrajectoryGenerator generator;
+
+    @Setup
+    public void setup(){
+        generator = new TrajectoryGenerator(12, 12, dt);
+    }
+
+    @Benchmark
+    public Trajectory generateTrajectory(){
+        return generator.generateTrajectory(2, 3, distance);
+    }
+}
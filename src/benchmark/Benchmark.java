@@ -0,0 +1,127 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+
+/**
+ * Tiny benchmark harness for the main methods in this package.
+ *
+ * Each benchmark is warmed up, then run for a fixed amount of time on the calling thread.
+ * We report throughput (ops/s) and the allocation rate, read from the per thread allocation counter
+ * that HotSpot exposes through {@link com.sun.management.ThreadMXBean} (the same counter JMH's gc profiler uses).
+ *
+ * This is for quick checks next to the correctness checks in the mains. Baseline numbers come from the JMH
+ * suite in jmh/ (mvn -B package, then java -jar target/benchmarks.jar -prof gc).
+ */
+public class Benchmark {
+
+    /**
+     * One operation to measure. Return something computed from the result so the JIT can't throw the work away.
+     */
+    public interface Op {
+        double run();
+    }
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final PrintStream results = System.out;
+
+    private static volatile double sink;
+
+    private long warmupNanos = 1_000_000_000L;
+    private long measureNanos = 2_000_000_000L;
+
+    public Benchmark(){
+        if (!threadBean.isThreadAllocatedMemorySupported()){
+            throw new IllegalStateException("This JVM doesn't support per thread allocation counting");
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public Benchmark(double warmupSeconds, double measureSeconds){
+        this();
+        this.warmupNanos = (long)(warmupSeconds * 1e9);
+        this.measureNanos = (long)(measureSeconds * 1e9);
+    }
+
+    /**
+     * Result of one benchmark run
+     */
+    public static class Result {
+        public final String name;
+        public final long ops;
+        public final double opsPerSecond;
+        public final double bytesPerOp;
+        public final double allocMBPerSecond;
+
+        Result(String name, long ops, long nanos, long bytes){
+            this.name = name;
+            this.ops = ops;
+            this.opsPerSecond = ops / (nanos / 1e9);
+            this.bytesPerOp = (double) bytes / ops;
+            this.allocMBPerSecond = bytes / (nanos / 1e9) / (1024 * 1024);
+        }
+
+        @Override
+        public String toString(){
+            final DecimalFormat format = new DecimalFormat("#0.000");
+            return String.format("%-48s %16s ops/s %12s B/op %12s MB/s",
+                    name, format.format(opsPerSecond), format.format(bytesPerOp), format.format(allocMBPerSecond));
+        }
+    }
+
+    public Result run(String name, Op op){
+        loop(op, warmupNanos);
+
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long ops = loop(op, measureNanos);
+        long nanos = System.nanoTime() - start;
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        Result result = new Result(name, ops, nanos, bytes);
+        results.println(result);
+        return result;
+    }
+
+    /**
+     * Runs the op in batches so the clock isn't read after every call.
+     * Batches double in size until one takes longer than a few milliseconds.
+     * @return number of ops run
+     */
+    private static long loop(Op op, long nanos){
+        long ops = 0;
+        int batch = 1;
+        double acc = 0;
+        long end = System.nanoTime() + nanos;
+        long batchStart = System.nanoTime();
+        while (batchStart < end){
+            for (int i = 0; i < batch; i++){
+                acc += op.run();
+            }
+            ops += batch;
+            long now = System.nanoTime();
+            if (now - batchStart < 5_000_000L && batch < 1 << 20){
+                batch <<= 1;
+            }
+            batchStart = now;
+        }
+        sink = acc;
+        return ops;
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, for allocation checks outside of {@link #run(String, Op)}
+     */
+    public static long allocatedBytes(){
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void printHeader(String title){
+        results.println();
+        results.println(title);
+        results.println(String.format("%-48s %22s %17s %17s", "Benchmark", "Throughput", "Alloc", "Alloc rate"));
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import math.RigidTransform;
+import subsystems.PathFollower;
+import subsystems.PoseEstimate;
+import trajectory.PoseTrack;
+import trajectory.TrajectoryCurveGenerator;
+import trajectory.TrajectoryPair;
+
+/**
+ * Follows the sample curve in real time on a simulated drive, once with the default park + spin wait, once
+ * parking only and once at a faster period than the curve was generated with, and prints the loop timing of each. Each run's final pose has to match the offline
+ * {@link TrajectoryCurveGenerator#computePoseTrack} prediction. They differ a little because the simulated drive
+ * integrates the commanded velocities instead of reading the planned positions.
+ */
+public class FollowerBenchmark {
+
+    private static final double kDt = 0.005;
+    private static final double kFastDt = 0.004;
+    private static final double kPositionTolerance = 0.02;
+    private static final double kHeadingTolerance = Math.toRadians(0.5);
+
+    public static void main(String[] args){
+        TrajectoryCurveGenerator generator = new TrajectoryCurveGenerator(12, 12, kDt);
+        TrajectoryPair curve = generator.createTrajectoryCurve(2, 3, 30, 5);
+        PoseTrack predicted = TrajectoryCurveGenerator.computePoseTrack(curve, true, generator.robotTrack,
+                new PoseTrack(curve.getLeadPath().size()));
+        RigidTransform expected = predicted.getPose(predicted.size() - 1);
+        System.out.println("Predicted final pose " + expected);
+
+        run("park + spin", kDt, curve, generator.robotTrack, -1, expected);
+        run("park only", kDt, curve, generator.robotTrack, 0, expected);
+        //the cursors interpolate the 5ms paths for a 4ms loop
+        run("park + spin, 250Hz", kFastDt, curve, generator.robotTrack, -1, expected);
+    }
+
+    private static void run(String name, double dt, TrajectoryPair curve, double robotTrack, long spinNanos, RigidTransform expected){
+        PoseEstimate poseEstimate = new PoseEstimate(true);
+        PathFollower follower = new PathFollower(dt, robotTrack, new PathFollower.SimulatedDrive(dt, robotTrack), poseEstimate);
+        if (spinNanos >= 0){
+            follower.setSpinNanos(spinNanos);
+        }
+        PathFollower.Stats stats = follower.follow(curve, true);
+        RigidTransform pose = poseEstimate.getPose();
+        System.out.println(name + ": final pose " + pose);
+        System.out.println(stats);
+        double positionError = Math.hypot(pose.getTranslation().x() - expected.getTranslation().x(),
+                pose.getTranslation().y() - expected.getTranslation().y());
+        double headingError = Math.abs(pose.getRotation().inverse().rotate(expected.getRotation()).radians());
+        System.out.println(String.format("off the prediction by %.4f, heading %.3fdeg", positionError, Math.toDegrees(headingError)));
+        if (positionError > kPositionTolerance || headingError > kHeadingTolerance){
+            throw new IllegalStateException(String.format("%s ended %.4f away from the prediction, heading off by %.3fdeg",
+                    name, positionError, Math.toDegrees(headingError)));
+        }
+    }
+}
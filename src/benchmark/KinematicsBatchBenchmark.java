@@ -0,0 +1,85 @@
+package benchmark;
+
+import math.Twist;
+import subsystems.Kinematics;
+
+import java.util.Random;
+
+/**
+ * Batch kinematics over primitive arrays against calling the scalar versions once per sample.
+ * Every op converts a whole profile of kLength samples; the results are printed per sample.
+ * Also checks that the batch results match the scalar ones.
+ */
+public class KinematicsBatchBenchmark {
+
+    private static final int kLength = 4096;
+    private static final double kRobotTrack = 2.4;
+
+    public static void main(String[] args){
+        Random random = new Random(254);
+        final double[] dx = new double[kLength];
+        final double[] dtheta = new double[kLength];
+        final Twist[] twists = new Twist[kLength];
+        for (int i = 0; i < kLength; i++){
+            dx[i] = random.nextDouble() * 0.1;
+            dtheta[i] = (random.nextDouble() - 0.5) * 0.1;
+            twists[i] = new Twist(dx[i], 0, dtheta[i]);
+        }
+        final double[] left = new double[kLength];
+        final double[] right = new double[kLength];
+        final double[] outDx = new double[kLength];
+        final double[] outDtheta = new double[kLength];
+
+        Kinematics.inverseKinematics(dx, dtheta, kRobotTrack, left, right, kLength);
+        Kinematics.forwardKinematics(left, right, kRobotTrack, outDx, outDtheta, kLength);
+        double error = 0;
+        for (int i = 0; i < kLength; i++){
+            Kinematics.DriveVelocity velocity = Kinematics.inverseKinematics(twists[i], kRobotTrack);
+            error = Math.max(error, Math.max(Math.abs(velocity.left - left[i]), Math.abs(velocity.right - right[i])));
+            error = Math.max(error, Math.max(Math.abs(outDx[i] - dx[i]), Math.abs(outDtheta[i] - dtheta[i])));
+        }
+        System.out.println("max difference from the scalar path / round trip: " + error);
+
+        Benchmark benchmark = new Benchmark();
+        Benchmark.printHeader("kinematics over " + kLength + " samples (ops are whole profiles)");
+        benchmark.run("inverseKinematics, scalar (allocating)", () -> {
+            double sum = 0;
+            for (int i = 0; i < kLength; i++){
+                Kinematics.DriveVelocity velocity = Kinematics.inverseKinematics(twists[i], kRobotTrack);
+                left[i] = velocity.left;
+                right[i] = velocity.right;
+                sum += velocity.left;
+            }
+            return sum;
+        });
+        final Kinematics.DriveVelocity out = new Kinematics.DriveVelocity(0, 0);
+        benchmark.run("inverseKinematics, scalar (in place)", () -> {
+            double sum = 0;
+            for (int i = 0; i < kLength; i++){
+                Kinematics.inverseKinematics(twists[i], kRobotTrack, out);
+                left[i] = out.left;
+                right[i] = out.right;
+                sum += out.left;
+            }
+            return sum;
+        });
+        benchmark.run("inverseKinematics, batch", () -> {
+            Kinematics.inverseKinematics(dx, dtheta, kRobotTrack, left, right, kLength);
+            return left[kLength - 1];
+        });
+        benchmark.run("forwardKinematics, scalar (allocating)", () -> {
+            double sum = 0;
+            for (int i = 0; i < kLength; i++){
+                Twist twist = Kinematics.forwardKinematics(left[i], right[i]);
+                outDx[i] = twist.dx();
+                outDtheta[i] = twist.dtheta();
+                sum += twist.dx();
+            }
+            return sum;
+        });
+        benchmark.run("forwardKinematics, batch", () -> {
+            Kinematics.forwardKinematics(left, right, kRobotTrack, outDx, outDtheta, kLength);
+            return outDx[kLength - 1];
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+import math.Twist;
+import subsystems.Kinematics;
+import subsystems.PoseHistory;
+import subsystems.PoseEstimate;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for the math package, the kinematics and odometry.
+ *
+ * Inputs are drawn from small precomputed tables so the JIT can't constant fold the work.
+ */
+public class MathBenchmarks {
+
+    private static final int kInputs = 1024;
+    private static final int kMask = kInputs - 1;
+
+    public static void main(String[] args){
+        Benchmark benchmark = new Benchmark();
+        Random random = new Random(254);
+
+        final Rotation[] rotations = new Rotation[kInputs];
+        final RigidTransform[] transforms = new RigidTransform[kInputs];
+        final Twist[] twists = new Twist[kInputs];
+        final double[] left = new double[kInputs];
+        final double[] right = new double[kInputs];
+        final double[] angles = new double[kInputs];
+        for (int i = 0; i < kInputs; i++){
+            rotations[i] = Rotation.fromRadians(random.nextDouble() * 2 * Math.PI);
+            transforms[i] = new RigidTransform(new Translation(random.nextDouble() * 10, random.nextDouble() * 10), rotations[i]);
+            twists[i] = new Twist(random.nextDouble() * 0.1, 0, (random.nextDouble() - 0.5) * 0.1);
+            left[i] = random.nextDouble() * 0.1;
+            right[i] = random.nextDouble() * 0.1;
+            angles[i] = (random.nextDouble() - 0.5) * 360;
+        }
+
+        Benchmark.printHeader("math / kinematics");
+        final int[] index = new int[1];
+        benchmark.run("Rotation.rotate", () -> {
+            int i = index[0]++ & kMask;
+            return rotations[i].rotate(rotations[(i + 1) & kMask]).cos();
+        });
+        benchmark.run("RigidTransform.transform", () -> {
+            int i = index[0]++ & kMask;
+            return transforms[i].transform(transforms[(i + 1) & kMask]).getTranslation().x();
+        });
+        benchmark.run("RigidTransform.exp", () -> {
+            int i = index[0]++ & kMask;
+            return RigidTransform.exp(twists[i]).getTranslation().x();
+        });
+        benchmark.run("RigidTransform.log", () -> {
+            int i = index[0]++ & kMask;
+            return RigidTransform.log(transforms[i]).dx();
+        });
+        benchmark.run("Kinematics.forwardKinematics", () -> {
+            int i = index[0]++ & kMask;
+            return Kinematics.forwardKinematics(left[i], right[i]).dtheta();
+        });
+        benchmark.run("Kinematics.inverseKinematics", () -> {
+            int i = index[0]++ & kMask;
+            return Kinematics.inverseKinematics(twists[i], 2.4).left;
+        });
+
+        final PoseEstimate poseEstimate = new PoseEstimate();
+        final double[] distance = new double[2];
+        benchmark.run("PoseEstimate.update", () -> {
+            int i = index[0]++ & kMask;
+            distance[0] += left[i];
+            distance[1] += right[i];
+            poseEstimate.update(distance[0], distance[1], angles[i]);
+            return poseEstimate.getPose().getTranslation().x();
+        });
+
+        final RigidTransform out = new RigidTransform();
+        benchmark.run("RigidTransform.transformInto", () -> {
+            int i = index[0]++ & kMask;
+            return transforms[i].transformInto(transforms[(i + 1) & kMask], out).getTranslation().x();
+        });
+        benchmark.run("RigidTransform.expInto", () -> {
+            int i = index[0]++ & kMask;
+            return RigidTransform.expInto(twists[i], out).getTranslation().x();
+        });
+
+        final PoseEstimate inPlaceEstimate = new PoseEstimate(true);
+        final double[] inPlaceDistance = new double[2];
+        benchmark.run("PoseEstimate.update (in place)", () -> {
+            int i = index[0]++ & kMask;
+            inPlaceDistance[0] += left[i];
+            inPlaceDistance[1] += right[i];
+            inPlaceEstimate.update(inPlaceDistance[0], inPlaceDistance[1], angles[i]);
+            return inPlaceEstimate.getPose().getTranslation().x();
+        });
+
+        //5 seconds of 200Hz history, looked up at random times inside it
+        final PoseHistory history = new PoseHistory(1000);
+        PoseEstimate historyEstimate = new PoseEstimate(true);
+        historyEstimate.setHistory(history);
+        for (int i = 0; i < history.capacity(); i++){
+            historyEstimate.update(i * 0.005, i * 0.01, i * 0.012, i * 0.05);
+        }
+        final double[] lookupTimes = new double[kInputs];
+        for (int i = 0; i < kInputs; i++){
+            lookupTimes[i] = random.nextDouble() * history.getLatestTime();
+        }
+        final RigidTransform lookup = new RigidTransform();
+        benchmark.run("PoseHistory.getPoseAt (1000 poses)", () -> {
+            int i = index[0]++ & kMask;
+            return history.getPoseAt(lookupTimes[i], lookup).getTranslation().x();
+        });
+        benchmark.run("PoseHistory.add", () -> {
+            int i = index[0]++ & kMask;
+            history.add(history.getLatestTime() + 0.005, transforms[i]);
+            return history.size();
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import math.RigidTransform;
+import math.Twist;
+import metrics.Metrics;
+import subsystems.PoseEstimate;
+import trajectory.Trajectory;
+import trajectory.TrajectoryGenerator;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * What the built in instrumentation costs: the instrumented hot paths with metrics enabled and disabled,
+ * followed by the snapshot the enabled runs recorded. First checks that loading the instrumented classes
+ * leaves metrics off and JMX alone until {@link Metrics#enableJmx()}.
+ */
+public class MetricsBenchmark {
+
+    public static void main(String[] args) throws MalformedObjectNameException {
+        Benchmark benchmark = new Benchmark();
+        final PoseEstimate poseEstimate = new PoseEstimate(true);
+        checkJmx();
+        final TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, 0.005);
+        final Trajectory lead = generator.createTrajectory(0, 0, 30);
+        final Twist twist = new Twist(0.05, 0, 0.01);
+        final RigidTransform out = new RigidTransform();
+        final int[] tick = new int[1];
+
+        for (boolean enabled : new boolean[]{false, true}){
+            Metrics.setEnabled(enabled);
+            Metrics.reset();
+            String suffix = enabled ? " (metrics on)" : " (metrics off)";
+            Benchmark.printHeader("instrumentation" + suffix);
+            benchmark.run("PoseEstimate.update" + suffix, () -> {
+                int i = tick[0]++;
+                poseEstimate.update(i, i * 0.01, i * 0.011, 0);
+                return poseEstimate.getPose().getTranslation().x();
+            });
+            benchmark.run("RigidTransform.expInto" + suffix,
+                    () -> RigidTransform.expInto(twist, out).getTranslation().x());
+            benchmark.run("generateScaledTrajectory" + suffix,
+                    () -> generator.generateScaledTrajectory(lead, 0.8).size());
+            benchmark.run("createTrajectory(0, 0, 30)" + suffix,
+                    () -> generator.createTrajectory(0, 0, 30).size());
+        }
+        System.out.println();
+        System.out.println(Metrics.snapshot());
+    }
+
+    private static void checkJmx() throws MalformedObjectNameException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName(Metrics.kDomain + ":*");
+        //PoseEstimate and RigidTransform are loaded by now, along with their metrics
+        if (Metrics.isEnabled() || !server.queryNames(pattern, null).isEmpty()){
+            throw new IllegalStateException("Loading instrumented classes enabled metrics or registered MBeans");
+        }
+        Metrics.enableJmx();
+        int registered = server.queryNames(pattern, null).size();
+        Metrics.counter("MetricsBenchmark.late");
+        if (!server.isRegistered(new ObjectName(Metrics.kDomain + ":type=Counter,name=\"MetricsBenchmark.late\""))){
+            throw new IllegalStateException("A metric created after enableJmx wasn't registered");
+        }
+        System.out.println("metrics start off, enableJmx registered " + registered + " MBeans");
+    }
+}
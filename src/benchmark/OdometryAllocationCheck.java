@@ -0,0 +1,64 @@
+package benchmark;
+
+import math.RigidTransform;
+import subsystems.PoseEstimate;
+
+import java.util.Random;
+
+/**
+ * Checks that the in place {@link PoseEstimate} mode allocates nothing once it is warmed up,
+ * and that it ends up at exactly the same pose as the allocating mode.
+ * Exits with a non zero status if either check fails.
+ */
+public class OdometryAllocationCheck {
+
+    private static final int kWarmupUpdates = 1_000_000;
+    private static final int kCheckedUpdates = 1_000_000;
+
+    public static void main(String[] args){
+        PoseEstimate allocating = new PoseEstimate();
+        PoseEstimate inPlace = new PoseEstimate(true);
+        Random random = new Random(254);
+
+        int total = kWarmupUpdates + kCheckedUpdates;
+        double[] left = new double[total];
+        double[] right = new double[total];
+        double[] angle = new double[total];
+        for (int i = 1; i < total; i++){
+            left[i] = left[i - 1] + random.nextDouble() * 0.05;
+            right[i] = right[i - 1] + random.nextDouble() * 0.05;
+            angle[i] = angle[i - 1] + (random.nextDouble() - 0.5);
+        }
+
+        //warm up in small chunks so drive() itself gets compiled, not just a loop inside it
+        for (int i = 0; i < kWarmupUpdates; i += 1000){
+            drive(inPlace, left, right, angle, i, i + 1000);
+        }
+        long startBytes = Benchmark.allocatedBytes();
+        drive(inPlace, left, right, angle, kWarmupUpdates, total);
+        long bytes = Benchmark.allocatedBytes() - startBytes;
+
+        drive(allocating, left, right, angle, 0, total);
+
+        RigidTransform expected = allocating.getPose();
+        RigidTransform actual = inPlace.getPose();
+        boolean samePose = expected.getTranslation().x() == actual.getTranslation().x()
+                && expected.getTranslation().y() == actual.getTranslation().y()
+                && expected.getRotation().cos() == actual.getRotation().cos()
+                && expected.getRotation().sin() == actual.getRotation().sin();
+
+        System.out.println("Allocated " + bytes + " bytes over " + kCheckedUpdates + " in place updates");
+        System.out.println("Allocating pose " + expected + " " + expected.getRotation() + ", in place pose " + actual + " " + actual.getRotation());
+        if (bytes != 0 || !samePose){
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void drive(PoseEstimate poseEstimate, double[] left, double[] right, double[] angle, int from, int to){
+        for (int i = from; i < to; i++){
+            poseEstimate.update(left[i], right[i], angle[i]);
+        }
+    }
+}
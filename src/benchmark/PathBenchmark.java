@@ -0,0 +1,108 @@
+package benchmark;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+import path.Path;
+import path.QuinticHermiteSpline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the {@link Path} tables against the splines and times building and querying a path.
+ *
+ * Accuracy: the table length against a brute force sum of 100000 chords per spline, the length and curvature
+ * of a straight path, and pose/curvature lookups between samples against evaluating the spline directly.
+ */
+public class PathBenchmark {
+
+    public static void main(String[] args){
+        final List<RigidTransform> route = route(10);
+        Path path = new Path(route);
+
+        double chords = 0;
+        for (QuinticHermiteSpline spline : path.getSplines()){
+            int steps = 100_000;
+            for (int i = 0; i < steps; i++){
+                chords += Math.hypot(spline.getX((i + 1.0) / steps) - spline.getX((double) i / steps),
+                        spline.getY((i + 1.0) / steps) - spline.getY((double) i / steps));
+            }
+        }
+        System.out.println(String.format("10 waypoints: length %.9f, brute force %.9f, %d samples",
+                path.getLength(), chords, path.size()));
+
+        Path straight = new Path(Arrays.asList(pose(0, 0, 0), pose(7, 0, 0)));
+        System.out.println(String.format("straight 7: length %.12f, max |curvature| %.3e",
+                straight.getLength(), maxAbsCurvature(straight)));
+
+        //largest error between table samples, against the exact spline at the same t
+        QuinticHermiteSpline spline = path.getSplines().get(3);
+        double start = path.getDistance(3 * Path.kDefaultSamplesPerSpline);
+        double positionError = 0;
+        double curvatureError = 0;
+        RigidTransform pose = new RigidTransform();
+        for (int i = 0; i <= 1000; i++){
+            double t = i / 1000.0;
+            double distance = start + length(spline, t);
+            path.getPoseAt(distance, pose);
+            positionError = Math.max(positionError, Math.hypot(pose.getTranslation().x() - spline.getX(t),
+                    pose.getTranslation().y() - spline.getY(t)));
+            curvatureError = Math.max(curvatureError, Math.abs(path.getCurvatureAt(distance) - spline.getCurvature(t)));
+        }
+        System.out.println(String.format("lookup vs spline: position %.3e, curvature %.3e", positionError, curvatureError));
+
+        final double length = path.getLength();
+        final double[] distances = new double[1024];
+        Random random = new Random(254);
+        for (int i = 0; i < distances.length; i++){
+            distances[i] = random.nextDouble() * length;
+        }
+        final int[] index = new int[1];
+        final RigidTransform out = new RigidTransform();
+        Benchmark benchmark = new Benchmark();
+        Benchmark.printHeader("path");
+        benchmark.run("new Path (10 waypoints)", () -> new Path(route).getLength());
+        benchmark.run("Path.getPoseAt", () -> path.getPoseAt(distances[index[0]++ & 1023], out).getTranslation().x());
+        benchmark.run("Path.getCurvatureAt", () -> path.getCurvatureAt(distances[index[0]++ & 1023]));
+    }
+
+    /**
+     * Length of a spline from 0 to t, brute force
+     */
+    private static double length(QuinticHermiteSpline spline, double t){
+        int steps = 10_000;
+        double length = 0;
+        for (int i = 0; i < steps; i++){
+            double a = t * i / steps;
+            double b = t * (i + 1) / steps;
+            length += Math.hypot(spline.getX(b) - spline.getX(a), spline.getY(b) - spline.getY(a));
+        }
+        return length;
+    }
+
+    private static double maxAbsCurvature(Path path){
+        double max = 0;
+        for (int i = 0; i < path.size(); i++){
+            max = Math.max(max, Math.abs(path.getCurvature(i)));
+        }
+        return max;
+    }
+
+    /**
+     * Zig zag across a field
+     */
+    static List<RigidTransform> route(int waypoints){
+        List<RigidTransform> route = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++){
+            route.add(pose(i * 5, (i % 2) * 4, (i % 2 == 0 ? 30 : -30)));
+        }
+        return route;
+    }
+
+    static RigidTransform pose(double x, double y, double degrees){
+        return new RigidTransform(new Translation(x, y), Rotation.fromDegrees(degrees));
+    }
+}
@@ -0,0 +1,219 @@
+package benchmark;
+
+import metrics.Histogram;
+import metrics.Metrics;
+import trajectory.PlanningService;
+import trajectory.Trajectory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Checks the {@link PlanningService} behaviours one at a time on a single worker, then runs a 5ms control loop that
+ * replans every period and reports how long the loop was held up by submitting, next to queue and compute time.
+ * On a single core the wall clock time of a submit includes the worker it wakes up running first, so the
+ * loop thread's own CPU time is reported next to it. Finally checks that closing the service completes every
+ * request it still holds.
+ */
+public class PlanningServiceBenchmark {
+
+    private static final double kDt = 0.005;
+
+    public static void main(String[] args) throws Exception {
+        //the outcome counters and queue/compute times below come from the service's metrics
+        Metrics.setEnabled(true);
+        try (PlanningService service = new PlanningService(1, 256)){
+            //keep the worker busy so everything below is still queued when the next request comes in
+            CountDownLatch gate = new CountDownLatch(1);
+            CompletableFuture<Object> blocker = service.submit(null, null, PlanningService.kHighPriority, 5000, () -> {
+                await(gate);
+                return null;
+            });
+
+            //latest wins: 100 replans under one key, only the last one should be computed
+            AtomicInteger replansRun = new AtomicInteger();
+            List<CompletableFuture<Integer>> replans = new ArrayList<>();
+            for (int i = 0; i < 100; i++){
+                final int goal = i;
+                replans.add(service.submit("drive", "replan " + i, PlanningService.kNormalPriority, 5000, () -> {
+                    replansRun.incrementAndGet();
+                    return goal;
+                }));
+            }
+
+            //coalescing: 10 requests for the same profile under different keys share one computation
+            List<CompletableFuture<Trajectory>> same = new ArrayList<>();
+            for (int i = 0; i < 10; i++){
+                same.add(service.planTrajectory("same " + i, PlanningService.kNormalPriority, 5000, 12, 12, kDt, 0, 0, 20));
+            }
+
+            //priority: low submitted before high, high should still run first
+            List<String> order = new ArrayList<>();
+            CompletableFuture<Object> low = service.submit(null, null, PlanningService.kLowPriority, 5000, () -> order.add("low"));
+            CompletableFuture<Object> high = service.submit(null, null, PlanningService.kHighPriority, 5000, () -> order.add("high"));
+
+            //deadline: 20ms is up long before the worker gets to it
+            AtomicInteger expiredRun = new AtomicInteger();
+            CompletableFuture<Integer> late = service.submit(null, null, PlanningService.kLowPriority, 20,
+                    expiredRun::incrementAndGet);
+
+            Thread.sleep(50);
+            gate.countDown();
+            blocker.get();
+            low.get();
+            high.get();
+            int winner = replans.get(99).get();
+            int cancelled = 0;
+            for (CompletableFuture<Integer> replan : replans){
+                cancelled += replan.isCancelled() ? 1 : 0;
+            }
+            Trajectory first = same.get(0).get();
+            boolean shared = true;
+            for (CompletableFuture<Trajectory> request : same){
+                shared &= request.get() == first;
+            }
+            String lateResult;
+            try {
+                late.get();
+                lateResult = "completed";
+            } catch (ExecutionException e){
+                lateResult = e.getCause() instanceof TimeoutException ? "timed out" : e.getCause().toString();
+            }
+            Thread.sleep(10);
+
+            System.out.println(String.format("latest wins: %d/100 replans cancelled, %d computed, result %d",
+                    cancelled, replansRun.get(), winner));
+            System.out.println(String.format("coalescing: 10 requests, same trajectory %b, %d coalesced",
+                    shared, Metrics.snapshot().getCount("PlanningService.coalesced")));
+            System.out.println("priority: ran " + order);
+            System.out.println(String.format("deadline: %s, planner ran %d times", lateResult, expiredRun.get()));
+            System.out.println(String.format("skipped %d stale requests without computing them",
+                    Metrics.snapshot().getCount("PlanningService.skipped")));
+
+            //latest wins + coalescing: resubmitting the plan that is running under the same key joins it instead of
+            //cancelling it and planning again
+            AtomicInteger resubmitRuns = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Supplier<Integer> slow = () -> {
+                resubmitRuns.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            };
+            CompletableFuture<Integer> running = service.submit("resubmit", "slow plan", PlanningService.kNormalPriority, 5000, slow);
+            started.await();
+            CompletableFuture<Integer> resubmitted = service.submit("resubmit", "slow plan", PlanningService.kNormalPriority, 5000, slow);
+            release.countDown();
+            int resubmittedResult = resubmitted.get();
+            if (resubmitRuns.get() != 1){
+                throw new IllegalStateException("Resubmitting a running plan under its key planned it " + resubmitRuns.get() + " times");
+            }
+            System.out.println(String.format("resubmit while running: first cancelled %b, second got %d, planned %d time",
+                    running.isCancelled(), resubmittedResult, resubmitRuns.get()));
+
+            //errors: a planner throwing an Error still completes its request
+            CompletableFuture<Object> error = service.submit(null, null, PlanningService.kNormalPriority, 5000, () -> {
+                throw new StackOverflowError("planner blew up");
+            });
+            try {
+                error.get();
+                throw new IllegalStateException("A planner that threw an Error completed normally");
+            } catch (ExecutionException e){
+                System.out.println("errors: request completed with " + e.getCause());
+            }
+
+            //first run warms up the JIT, the second one is reported
+            controlLoop(service, false);
+            controlLoop(service, true);
+        }
+        checkClose();
+    }
+
+    /**
+     * Closing the service has to complete every request still waiting for a worker, not just the coalescable ones
+     */
+    private static void checkClose() throws InterruptedException {
+        PlanningService service = new PlanningService(1, 16);
+        CountDownLatch gate = new CountDownLatch(1);
+        CompletableFuture<Object> running = service.submit(null, null, PlanningService.kNormalPriority, 60000, () -> {
+            await(gate);
+            return null;
+        });
+        List<CompletableFuture<?>> queued = new ArrayList<>();
+        queued.add(service.submit(null, null, PlanningService.kNormalPriority, 60000, () -> "queued"));
+        queued.add(service.planTrajectory(null, PlanningService.kNormalPriority, 60000, 12, 12, kDt, 0, 0, 20));
+        Thread.sleep(10);
+        service.close();
+        queued.add(running);
+        int hanging = 0;
+        for (CompletableFuture<?> request : queued){
+            hanging += request.isCompletedExceptionally() ? 0 : 1;
+        }
+        if (hanging > 0){
+            throw new IllegalStateException(hanging + " requests were still pending after close()");
+        }
+        System.out.println("close: all " + queued.size() + " pending requests completed exceptionally");
+    }
+
+    /**
+     * 2 seconds of a 5ms loop that asks for a new curve every period and picks it up whenever it's done
+     */
+    private static void controlLoop(PlanningService service, boolean print) throws InterruptedException {
+        Metrics.reset();
+        Histogram submitTime = Metrics.histogram("PlanningServiceBenchmark.submit");
+        Histogram submitCpu = Metrics.histogram("PlanningServiceBenchmark.submitCpu");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long period = (long) (kDt * 1e9);
+        long next = System.nanoTime();
+        int received = 0;
+        CompletableFuture<?> pending = null;
+        for (int i = 0; i < 400; i++){
+            if (pending != null && pending.isDone() && !pending.isCompletedExceptionally()){
+                received++;
+            }
+            long cpu = threads.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            pending = service.planCurve("drive", PlanningService.kHighPriority, 50, 12, 12, kDt, 0, 0,
+                    90 + i * 0.01, 5);
+            submitTime.record(System.nanoTime() - start);
+            submitCpu.record(threads.getCurrentThreadCpuTime() - cpu);
+            next += period;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0){
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+            }
+        }
+        if (!print){
+            return;
+        }
+        Metrics.Snapshot snapshot = Metrics.snapshot();
+        System.out.println(String.format("control loop: 400 replans, %d plans picked up, %d superseded",
+                received, snapshot.getCount("PlanningService.superseded")));
+        print(snapshot.getHistogram("PlanningServiceBenchmark.submit"), "submit, wall clock");
+        print(snapshot.getHistogram("PlanningServiceBenchmark.submitCpu"), "submit, loop CPU time");
+        print(snapshot.getHistogram("PlanningService.queue"), "queue");
+        print(snapshot.getHistogram("PlanningService.compute"), "compute");
+    }
+
+    private static void print(Histogram.Snapshot snapshot, String name){
+        System.out.println(String.format("  %-22s mean %8.1fus  p99 < %8.1fus  max %8.1fus", name,
+                snapshot.getMean() / 1e3, snapshot.getPercentile(0.99) / 1e3, snapshot.getMax() / 1e3));
+    }
+
+    private static void await(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
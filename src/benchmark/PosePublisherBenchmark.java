@@ -0,0 +1,93 @@
+package benchmark;
+
+import subsystems.PoseEstimate;
+import subsystems.PosePublisher;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One odometry thread updating a {@link PoseEstimate} as fast as it can while several threads read
+ * snapshots from its {@link PosePublisher}. Reports reads per second, ns per read, and the odometry update rate.
+ *
+ * The writer drives straight ahead at one unit per update, so every consistent snapshot has x equal to the
+ * timestamp and y equal to 0; readers count anything else as a torn read.
+ * Takes the number of reader threads as an optional argument.
+ */
+public class PosePublisherBenchmark {
+
+    private static final long kRunNanos = 3_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final PosePublisher publisher = new PosePublisher();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] reads = new long[readers];
+        final long[] torn = new long[readers];
+        final long[] updates = new long[1];
+
+        Thread writer = new Thread(() -> {
+            PoseEstimate poseEstimate = new PoseEstimate(true);
+            poseEstimate.setPublisher(publisher);
+            awaitQuietly(start);
+            long i = 0;
+            while (running.get()){
+                i++;
+                poseEstimate.update(i, i, i, 0);
+            }
+            updates[0] = i;
+        }, "odometry");
+
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++){
+            final int id = r;
+            readerThreads[r] = new Thread(() -> {
+                PosePublisher.Snapshot snapshot = new PosePublisher.Snapshot();
+                awaitQuietly(start);
+                long count = 0, bad = 0;
+                while (running.get()){
+                    publisher.read(snapshot);
+                    if (snapshot.x() != snapshot.getTimestamp() || snapshot.y() != 0){
+                        bad++;
+                    }
+                    count++;
+                }
+                reads[id] = count;
+                torn[id] = bad;
+            }, "reader-" + r);
+        }
+
+        writer.start();
+        for (Thread thread : readerThreads){
+            thread.start();
+        }
+        start.countDown();
+        Thread.sleep(kRunNanos / 1_000_000);
+        running.set(false);
+        writer.join();
+        long totalReads = 0, totalTorn = 0;
+        for (int r = 0; r < readers; r++){
+            readerThreads[r].join();
+            totalReads += reads[r];
+            totalTorn += torn[r];
+        }
+
+        final DecimalFormat format = new DecimalFormat("#0.000");
+        double seconds = kRunNanos / 1e9;
+        System.out.println(readers + " readers, 1 writer");
+        System.out.println("writer: " + format.format(updates[0] / seconds / 1e6) + "M updates/s");
+        System.out.println("readers: " + format.format(totalReads / seconds / 1e6) + "M reads/s total, "
+                + format.format(seconds * 1e9 * readers / totalReads) + " ns/read per reader");
+        System.out.println("torn reads: " + totalTorn);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
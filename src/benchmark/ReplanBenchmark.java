@@ -0,0 +1,115 @@
+package benchmark;
+
+import metrics.Histogram;
+import metrics.Metrics;
+import trajectory.Replanner;
+import trajectory.Trajectory;
+import trajectory.TrajectoryGenerator;
+
+import java.util.Random;
+
+/**
+ * Replan latency against the 5ms control period: drives along a 30 unit move and replans to a goal that keeps
+ * moving at random points along the way, timing every replan. Also reports bytes allocated per replan
+ * and compares throughput with generating a fresh trajectory. First checks that replanning to the old goal
+ * reproduces the old trajectory, stamps included, so splicing doesn't add a period of lag, and that a robot
+ * bumped too fast to stop at the goal gets a braking plan instead of an exception.
+ */
+public class ReplanBenchmark {
+
+    private static final double kDt = 0.005;
+    private static final int kReplans = 200_000;
+
+    public static void main(String[] args){
+        Metrics.setEnabled(true);
+        Random random = new Random(254);
+        final Replanner replanner = new Replanner(12, 12, kDt);
+        Trajectory lead = new TrajectoryGenerator(12, 12, kDt).createTrajectory(0, 0, 30);
+        Trajectory.Cursor cursor = lead.cursor();
+        Histogram latency = Metrics.histogram("ReplanBenchmark.replan");
+        double totalTime = lead.getTime(lead.size() - 1);
+        checkSplice(replanner, lead, 30);
+        checkBumped(replanner);
+
+        //warm up, then time every replan
+        for (int i = 0; i < kReplans; i++){
+            replanAt(replanner, cursor, random.nextDouble() * totalTime * 0.9, random);
+        }
+        latency.reset();
+        long bytes = Benchmark.allocatedBytes();
+        int points = 0;
+        for (int i = 0; i < kReplans; i++){
+            double t = random.nextDouble() * totalTime * 0.9;
+            long start = System.nanoTime();
+            Trajectory replanned = replanAt(replanner, cursor, t, random);
+            latency.record(System.nanoTime() - start);
+            points += replanned.size();
+        }
+        bytes = Benchmark.allocatedBytes() - bytes;
+        Histogram.Snapshot snapshot = latency.snapshot();
+        System.out.println(String.format("replan: mean %.1fus, p99 < %.1fus, max %.1fus (%.2f%% of a %.0fms period), "
+                        + "%.1f bytes/replan, %d points/replan",
+                snapshot.getMean() / 1e3, snapshot.getPercentile(0.99) / 1e3, snapshot.getMax() / 1e3,
+                100 * snapshot.getMax() / (kDt * 1e9), kDt * 1e3, (double) bytes / kReplans, points / kReplans));
+
+        final TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, kDt);
+        final int[] index = new int[1];
+        Benchmark benchmark = new Benchmark();
+        Benchmark.printHeader("replan vs generate");
+        benchmark.run("Replanner.replan (pooled)", () -> {
+            int i = index[0]++ & 1023;
+            return replanner.replan(i * 0.01, 3, 0, 30 + i * 0.01, 0).size();
+        });
+        benchmark.run("createTrajectory (new arrays)", () -> {
+            int i = index[0]++ & 1023;
+            return generator.createTrajectory(3, 0, 30).size() + i;
+        });
+    }
+
+    /**
+     * Replans to the old goal from a few points along the old trajectory and compares the overlap point by point
+     */
+    private static void checkSplice(Replanner replanner, Trajectory old, double goal){
+        Trajectory.Cursor cursor = old.cursor();
+        double worstPos = 0;
+        for (int k = 0; k < old.size(); k += 97){
+            cursor.moveTo(old.getTime(k));
+            Trajectory replanned = replanner.replan(cursor, goal, 0);
+            for (int j = 0; j < replanned.size() && k + j < old.size(); j++){
+                if (Math.abs(replanned.getTime(j) - old.getTime(k + j)) > 1e-9){
+                    throw new IllegalStateException(String.format("Replanned at point %d, point %d is stamped %.6f"
+                            + " instead of %.6f", k, j, replanned.getTime(j), old.getTime(k + j)));
+                }
+                worstPos = Math.max(worstPos, Math.abs(replanned.getPos(j) - old.getPos(k + j)));
+            }
+        }
+        if (worstPos > 1e-6){
+            throw new IllegalStateException("Replanning to the old goal moved the plan by up to " + worstPos);
+        }
+        System.out.println(String.format("splice: replans to the old goal keep its stamps, positions within %.1e", worstPos));
+    }
+
+    /**
+     * Full speed with the goal 1 unit away can't stop in time at 12 units/s^2
+     */
+    private static void checkBumped(Replanner replanner){
+        Trajectory plan = replanner.replan(10, 12, 1, 11, 0);
+        int last = plan.size() - 1;
+        double minAcc = 0;
+        for (int i = 0; i < plan.size(); i++){
+            minAcc = Math.min(minAcc, plan.getAcc(i));
+        }
+        if (replanner.isFeasible() || minAcc < -12 || plan.getVel(last) > 0.1 || plan.getPos(last) < 11){
+            throw new IllegalStateException("Bumped replan isn't a braking plan past the goal: feasible "
+                    + replanner.isFeasible() + ", ends at " + plan.getPos(last) + " with vel " + plan.getVel(last));
+        }
+        System.out.println(String.format("bumped: brakes at %.1f and stops at %.3f, %.3f past the goal",
+                minAcc, plan.getPos(last), plan.getPos(last) - 11));
+    }
+
+    private static Trajectory replanAt(Replanner replanner, Trajectory.Cursor cursor, double t, Random random){
+        cursor.moveTo(t);
+        //goal moved up to 5 units further out
+        return replanner.replan(cursor, 30 + random.nextDouble() * 5, 0);
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark;
+
+import subsystems.OdometryReplay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Writes a synthetic odometry log and replays it with {@link OdometryReplay}, reporting samples per second.
+ * Takes the number of samples as an optional argument.
+ */
+public class ReplayBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        Random random = new Random(254);
+        double[] time = new double[count];
+        double[] left = new double[count];
+        double[] right = new double[count];
+        double[] angle = new double[count];
+        for (int i = 1; i < count; i++){
+            time[i] = i * 0.005;
+            left[i] = left[i - 1] + random.nextDouble() * 0.05;
+            right[i] = right[i - 1] + random.nextDouble() * 0.05;
+            angle[i] = angle[i - 1] + (random.nextDouble() - 0.5);
+        }
+
+        Path log = Files.createTempFile("odometry", ".log");
+        try {
+            OdometryReplay.write(log, time, left, right, angle);
+            OdometryReplay replay = new OdometryReplay();
+            double[] poses = new double[count * 3];
+            final DecimalFormat format = new DecimalFormat("#0.000");
+            for (int run = 0; run < 5; run++){
+                replay.replay(log, run % 2 == 0 ? null : poses);
+                double samplesPerSecond = replay.getSamplesPerSecond();
+                System.out.println("replay " + run + (run % 2 == 0 ? " (final pose only)" : " (every pose)") + ": "
+                        + format.format(samplesPerSecond / 1e6) + "M samples/s, "
+                        + format.format(samplesPerSecond * OdometryReplay.kSampleBytes / (1024 * 1024)) + " MB/s, final pose "
+                        + replay.getPose());
+            }
+            System.out.println("last replayed time " + replay.getTimestamp() + " (logged " + time[count - 1] + ")");
+        } finally {
+            Files.delete(log);
+        }
+    }
+}
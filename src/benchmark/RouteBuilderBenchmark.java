@@ -0,0 +1,64 @@
+package benchmark;
+
+import trajectory.PoseTrack;
+import trajectory.RouteBuilder;
+import trajectory.TrajectoryGenerator;
+
+/**
+ * Checks a line / quarter turn / line route against its known end pose and velocity continuity (the wheels step at
+ * the arc's ends by as much as RouteBuilder documents, the centerline doesn't), then compares
+ * building a 10 segment route with generating a single straight profile of the same length.
+ */
+public class RouteBuilderBenchmark {
+
+    private static final double kDt = 0.005;
+    private static final double kRobotTrack = 2.4;
+
+    public static void main(String[] args){
+        //5 forward, quarter turn left on radius 5, 5 forward: ends near (10, 10) facing +y
+        PoseTrack check = new RouteBuilder(12, 12, kDt, kRobotTrack).addLine(5).addArc(90, 5).addLine(5).build(0, 0);
+        int last = check.size() - 1;
+        double maxStep = 0;
+        double maxWheelStep = 0;
+        double maxVel = 0;
+        double arcError = 0;
+        for (int i = 1; i < check.size(); i++){
+            double vel = (check.getLeftVel(i) + check.getRightVel(i)) / 2;
+            double previous = (check.getLeftVel(i - 1) + check.getRightVel(i - 1)) / 2;
+            maxStep = Math.max(maxStep, Math.abs(vel - previous));
+            maxWheelStep = Math.max(maxWheelStep, Math.max(Math.abs(check.getLeftVel(i) - check.getLeftVel(i - 1)),
+                    Math.abs(check.getRightVel(i) - check.getRightVel(i - 1))));
+            maxVel = Math.max(maxVel, vel);
+            //on the arc the pose should sit on the circle around (5, 5) at its heading
+            double heading = check.getHeading(i);
+            if (heading > 0 && heading < Math.PI / 2){
+                arcError = Math.max(arcError, Math.hypot(check.getX(i) - (5 + 5 * Math.sin(heading)),
+                        check.getY(i) - (5 - 5 * Math.cos(heading))));
+            }
+        }
+        System.out.println(String.format("line/arc/line ends at (%.6f, %.6f) heading %.4fdeg, left %.3f right %.3f",
+                check.getX(last), check.getY(last), Math.toDegrees(check.getHeading(last)), check.getLeft(last),
+                check.getRight(last)));
+        System.out.println(String.format("largest centerline velocity step %.4f (acc * dt = %.4f), arc pose error %.3e",
+                maxStep, 12 * kDt, arcError));
+        //wheels aren't continuous where the curvature jumps, see RouteBuilder: the step is vel * halfTrack / radius
+        double wheelStepBound = maxVel * kRobotTrack / 2 / 5 + 12 * kDt * (1 + kRobotTrack / 2 / 5);
+        System.out.println(String.format("largest wheel velocity step %.4f (line/arc boundary at %.3f: %.4f)",
+                maxWheelStep, maxVel, wheelStepBound));
+        if (maxStep > 12 * kDt + 1E-9 || maxWheelStep > wheelStepBound + 1E-9){
+            throw new IllegalStateException("Route velocity steps are larger than the profile and curvature allow");
+        }
+
+        final RouteBuilder route = new RouteBuilder(12, 12, kDt, kRobotTrack);
+        for (int i = 0; i < 5; i++){
+            route.addLine(4).addArc(i % 2 == 0 ? 45 : -45, 6);
+        }
+        final double length = route.getLength();
+        final PoseTrack out = new PoseTrack(0);
+        final TrajectoryGenerator generator = new TrajectoryGenerator(12, route.getVelocityLimit(), kDt);
+        Benchmark benchmark = new Benchmark();
+        Benchmark.printHeader("10 segment route vs one straight profile, length " + String.format("%.1f", length));
+        benchmark.run("RouteBuilder.build (into a reused track)", () -> route.build(0, 0, out).size());
+        benchmark.run("createTrajectory (straight)", () -> generator.createTrajectory(0, 0, length).size());
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import trajectory.RouteLibrary;
+import trajectory.RouteLibraryBuilder;
+import trajectory.RouteSpec;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds the same route library with 1, 2, 4, ... worker threads (up to the core count) and prints the time each took.
+ * The ratio to one thread is only a scaling measurement on a machine with several cores; with one core it's a single
+ * row, and RouteLibraryBuilder makes no claim about scaling until someone has run this on one.
+ */
+public class RouteLibraryBenchmark {
+
+    private static final int kRepetitions = 5;
+
+    public static void main(String[] args){
+        RouteLibraryBuilder builder = new RouteLibraryBuilder(12, 12, 0.005, 2.4);
+        for (double startVel = 0; startVel <= 4; startVel += 2){
+            for (double endVel = 0; endVel <= 4; endVel += 2){
+                for (double degrees = 15; degrees <= 180; degrees += 15){
+                    for (double turnRadius = 3; turnRadius <= 9; turnRadius += 3){
+                        builder.add(RouteSpec.curve(startVel, endVel, degrees, turnRadius));
+                    }
+                }
+                for (double distance = 2; distance <= 30; distance += 2){
+                    builder.add(RouteSpec.straight(startVel, endVel, distance));
+                }
+            }
+        }
+
+        final DecimalFormat format = new DecimalFormat("#0.000");
+        int cores = Runtime.getRuntime().availableProcessors();
+        double singleThreadMillis = 0;
+        for (int threads = 1; threads <= cores; threads = threads * 2 > cores && threads != cores ? cores : threads * 2){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            builder.build(pool); //warm up
+            double best = Double.MAX_VALUE;
+            RouteLibrary library = null;
+            for (int i = 0; i < kRepetitions; i++){
+                long start = System.nanoTime();
+                library = builder.build(pool);
+                best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            }
+            pool.shutdown();
+            if (threads == 1){
+                singleThreadMillis = best;
+            }
+            System.out.println(threads + " threads: " + library.size() + " routes in " + format.format(best) + " ms, "
+                    + format.format(singleThreadMillis / best) + "x the one thread rate");
+        }
+        if (cores == 1){
+            System.out.println("one core: no scaling measured");
+        }
+    }
+}
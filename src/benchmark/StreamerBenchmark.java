@@ -0,0 +1,140 @@
+package benchmark;
+
+import subsystems.SetpointStreamer;
+import trajectory.Trajectory;
+import trajectory.TrajectoryCurveGenerator;
+import trajectory.TrajectoryGenerator;
+import trajectory.TrajectoryPair;
+
+/**
+ * Streams a curve into a {@link SetpointStreamer.SimulatedController} running 10x faster than real time and checks that
+ * every point arrives in order, shows underruns being counted for a controller that's fed too slowly, checks that a
+ * short follow path doesn't cut the lead path off, then measures throughput against batch size (on one reused
+ * producer thread) and the memory used for a route 100x longer, streamed from a lazy profile.
+ */
+public class StreamerBenchmark {
+
+    private static final double kDt = 0.005;
+
+    public static void main(String[] args) throws InterruptedException {
+        TrajectoryPair curve = new TrajectoryCurveGenerator(12, 12, kDt).createTrajectoryCurve(0, 0, 90, 5);
+        SetpointStreamer.SimulatedController controller = new SetpointStreamer.SimulatedController(128, 500_000L);
+        SetpointStreamer.Stats stats;
+        try (SetpointStreamer streamer = new SetpointStreamer(controller)){
+            stats = streamer.stream(curve, false);
+        }
+        controller.awaitDone();
+        Trajectory left = curve.getFollowPath();
+        Trajectory right = curve.getLeadPath();
+        int last = left.size() - 1;
+        System.out.println("curve, 0.5ms per point: " + stats);
+        System.out.println(String.format("executed %d of %d points, end left %.6f (expected %.6f), right %.6f (expected %.6f)",
+                controller.getExecuted(), right.size(), controller.getLeftPos(), left.getPos(last),
+                controller.getRightPos(), right.getPos(last)));
+
+        //tiny buffer executing a point every 20us, faster than one core can keep feeding it: underruns get counted
+        SetpointStreamer.SimulatedController starved = new SetpointStreamer.SimulatedController(8, 20_000L);
+        try (SetpointStreamer streamer = new SetpointStreamer(starved, 1, 1)){
+            stats = streamer.stream(curve, false);
+        }
+        starved.awaitDone();
+        System.out.println("8 point buffer, 20us per point: " + stats);
+
+        checkShortFollowPath();
+
+        //a controller that's always ready, so all the time goes into producing and pushing
+        TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, kDt);
+        Trajectory lead = generator.generateProfile(0, 0, 2000);
+        TrajectoryPair straight = new TrajectoryPair(lead, generator.generateScaledTrajectory(lead, 0.8));
+        System.out.println();
+        System.out.println(String.format("%d point lazy route into a controller that is never full:", lead.size()));
+        for (int batchSize : new int[]{1, 8, 32, 128}){
+            try (SetpointStreamer streamer = new SetpointStreamer(new Sink(), batchSize, SetpointStreamer.kDefaultQueuedBatches)){
+                for (int i = 0; i < 5; i++){
+                    streamer.stream(straight, false);
+                }
+                int producers = countProducers();
+                long bytes = Benchmark.allocatedBytes();
+                stats = streamer.stream(straight, false);
+                bytes = Benchmark.allocatedBytes() - bytes;
+                System.out.println(String.format("  batch %3d: %10.0f points/s, %7d pushes, %5d bytes allocated by the stream call",
+                        batchSize, stats.getThroughput(), stats.getPushes(), bytes));
+                if (producers != 1 || countProducers() != 1){
+                    throw new IllegalStateException("Streams started " + countProducers() + " producer threads instead of reusing one");
+                }
+            }
+        }
+
+        //100x longer, the streamer's memory stays the same
+        Trajectory longLead = generator.generateProfile(0, 0, 200_000);
+        TrajectoryPair longRoute = new TrajectoryPair(longLead, generator.generateScaledTrajectory(longLead, 0.8));
+        try (SetpointStreamer streamer = new SetpointStreamer(new Sink())){
+            streamer.stream(straight, false);
+            long bytes = Benchmark.allocatedBytes();
+            stats = streamer.stream(longRoute, false);
+            bytes = Benchmark.allocatedBytes() - bytes;
+            System.out.println(String.format("%d point lazy route: %.0f points/s, %d bytes allocated by the stream call",
+                    longLead.size(), stats.getThroughput(), bytes));
+        }
+    }
+
+    /**
+     * A left turn whose follow (left) path is shorter than the lead: every lead point is still sent, with the
+     * follow side holding its last point
+     */
+    private static void checkShortFollowPath() throws InterruptedException {
+        TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, kDt);
+        Trajectory lead = generator.createTrajectory(0, 0, 5);
+        Trajectory follow = generator.createTrajectory(0, 0, 3);
+        SetpointStreamer.SimulatedController controller = new SetpointStreamer.SimulatedController(64, 0);
+        try (SetpointStreamer streamer = new SetpointStreamer(controller, 16, 2)){
+            streamer.stream(new TrajectoryPair(lead, follow), false);
+        }
+        controller.awaitDone();
+        int last = lead.size() - 1;
+        System.out.println(String.format("short follow path: executed %d of %d lead points, end left %.6f right %.6f",
+                controller.getExecuted(), lead.size(), controller.getLeftPos(), controller.getRightPos()));
+        if (controller.getExecuted() != lead.size() || controller.getRightPos() != lead.getPos(last)
+                || controller.getLeftPos() != follow.getPos(follow.size() - 1)){
+            throw new IllegalStateException("A shorter follow path cut the lead path short");
+        }
+    }
+
+    private static int countProducers(){
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()){
+            if (thread.getName().equals("setpoint-producer") && thread.isAlive()){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Takes everything right away and just keeps a checksum
+     */
+    private static class Sink implements SetpointStreamer.Controller {
+        private double sum;
+
+        @Override
+        public int getFreeSpace(){
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void push(SetpointStreamer.Batch batch, int offset, int count){
+            for (int i = offset; i < offset + count; i++){
+                sum += batch.leftPos[i] + batch.rightVel[i];
+            }
+        }
+
+        @Override
+        public void end(){
+        }
+
+        @Override
+        public long getUnderruns(){
+            return sum < 0 ? 1 : 0;
+        }
+    }
+}
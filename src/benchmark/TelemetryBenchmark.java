@@ -0,0 +1,90 @@
+package benchmark;
+
+import math.RigidTransform;
+import subsystems.Kinematics;
+import subsystems.PoseEstimate;
+import subsystems.TelemetryRecorder;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Measures what {@link TelemetryRecorder} costs the control loop: ns and bytes allocated per recorded sample,
+ * first with a drain that keeps up (writes to nowhere), then with one that is slower than the producer
+ * so samples get dropped instead of blocking.
+ *
+ * The producer here records back to back with no idle time, unlike a real 200Hz loop, so on a machine with a single
+ * core the drain thread only runs when the producer's time slice ends and most samples are dropped even with the fast drain.
+ */
+public class TelemetryBenchmark {
+
+    private static final int kSamples = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        run("fast drain", new NullWriter(0), 1 << 16);
+        run("slow drain", new NullWriter(50_000), 1 << 10);
+    }
+
+    private static void run(String name, Writer writer, int capacity) throws IOException {
+        TelemetryRecorder recorder = new TelemetryRecorder(capacity, writer).start();
+        PoseEstimate poseEstimate = new PoseEstimate(true);
+        poseEstimate.setTelemetry(recorder);
+        Kinematics.DriveVelocity velocity = new Kinematics.DriveVelocity(1, 1);
+        RigidTransform pose = poseEstimate.getPose();
+
+        //warm up, then measure
+        drive(poseEstimate, recorder, velocity, 0, kSamples);
+        long bytes = Benchmark.allocatedBytes();
+        long start = System.nanoTime();
+        drive(poseEstimate, recorder, velocity, kSamples, kSamples);
+        long nanos = System.nanoTime() - start;
+        bytes = Benchmark.allocatedBytes() - bytes;
+        recorder.close();
+
+        long samples = 3L * kSamples;
+        System.out.println(name + ": " + String.format("%.1f", (double) nanos / samples) + " ns/sample, "
+                + bytes + " bytes allocated, " + recorder.getRecorded() + " recorded, "
+                + recorder.getDropped() + " dropped, final x " + pose.getTranslation().x());
+    }
+
+    private static void drive(PoseEstimate poseEstimate, TelemetryRecorder recorder, Kinematics.DriveVelocity velocity,
+                              int from, int count){
+        for (int i = from; i < from + count; i++){
+            double t = i * 0.005;
+            recorder.recordSetpoint(t, i, 1, 0);
+            recorder.recordDriveVelocity(t, velocity);
+            poseEstimate.update(t, i, i, 0);
+        }
+    }
+
+    /**
+     * Discards everything, optionally spinning for a while on every line to simulate a slow disk
+     */
+    private static class NullWriter extends Writer {
+        private final int spinPerLine;
+        private long sink;
+
+        NullWriter(int spinPerLine){
+            this.spinPerLine = spinPerLine;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length){
+            for (int i = offset; i < offset + length; i++){
+                if (buffer[i] == '\n'){
+                    for (int j = 0; j < spinPerLine; j++){
+                        sink += j;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush(){
+        }
+
+        @Override
+        public void close(){
+        }
+    }
+}
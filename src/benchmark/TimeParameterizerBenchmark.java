@@ -0,0 +1,54 @@
+package benchmark;
+
+import path.Path;
+import path.TimeParameterizer;
+import trajectory.Trajectory;
+
+/**
+ * Parameterizes a 10000 sample path and checks the result against every constraint and the (i+1)*dt time stamps,
+ * then times it.
+ */
+public class TimeParameterizerBenchmark {
+
+    private static final double kMaxVel = 12;
+    private static final double kMaxAcc = 10;
+    private static final double kMaxCentripetalAcc = 6;
+    private static final double kRobotTrack = 2.4;
+    private static final double kMaxWheelVel = 13;
+    private static final double kDt = 0.005;
+    private static final double kTolerance = 1E-6;
+
+    public static void main(String[] args){
+        //9 splines * 1111 samples + 1 = 10000 samples
+        final Path path = new Path(PathBenchmark.route(10), 1111);
+        final TimeParameterizer parameterizer = new TimeParameterizer(kMaxVel, kMaxAcc, kMaxCentripetalAcc, kRobotTrack,
+                kMaxWheelVel, kDt);
+        Trajectory trajectory = parameterizer.parameterize(path, 0, 0);
+
+        int violations = 0;
+        for (int i = 0; i < trajectory.size(); i++){
+            double vel = trajectory.getVel(i);
+            double curvature = Math.abs(path.getCurvatureAt(trajectory.getPos(i)));
+            boolean ok = vel <= kMaxVel + kTolerance
+                    && vel * (1 + curvature * kRobotTrack / 2) <= kMaxWheelVel + kTolerance
+                    && vel * vel * curvature <= kMaxCentripetalAcc + 1E-3
+                    && Math.abs(trajectory.getAcc(i)) <= kMaxAcc + kTolerance
+                    && (i == 0 || trajectory.getPos(i) >= trajectory.getPos(i - 1))
+                    //stamped like every other trajectory, see Trajectory
+                    && Math.abs(trajectory.getTime(i) - (i + 1) * kDt) <= kTolerance;
+            if (!ok){
+                violations++;
+            }
+        }
+        int last = trajectory.size() - 1;
+        System.out.println(String.format("%d path samples, length %.3f -> %d trajectory samples, %.3fs, "
+                        + "ends at %.6f with vel %.3f, %d constraint violations",
+                path.size(), path.getLength(), trajectory.size(), trajectory.getTime(last),
+                trajectory.getPos(last), trajectory.getVel(last), violations));
+
+        final Trajectory out = new Trajectory(0);
+        Benchmark benchmark = new Benchmark();
+        Benchmark.printHeader("time parameterization");
+        benchmark.run("parameterizeInto (10000 samples)", () -> parameterizer.parameterizeInto(path, 0, 0, out).size());
+    }
+}
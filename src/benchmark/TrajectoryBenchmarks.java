@@ -0,0 +1,141 @@
+package benchmark;
+
+import trajectory.PoseTrack;
+import trajectory.Trajectory;
+import trajectory.TrajectoryCurveGenerator;
+import trajectory.TrajectoryGenerator;
+import trajectory.TrajectoryPair;
+import trajectory.TrapezoidalProfile;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Benchmarks for trajectory generation over a sweep of distances and dt values.
+ * First checks that {@link TrapezoidalProfile#sample(double)}, its {@link Trajectory.Cursor} and its materialized
+ * copy all read the same state at the same time, and that a curve with an empty follow path can still be tracked.
+ */
+public class TrajectoryBenchmarks {
+
+    private static final double[] kDistances = {10, 100, 1000};
+    private static final double[] kDts = {0.01, 0.005, 0.001};
+    //linear interpolation between 5ms points is off by at most acc * dt^2 / 8 in position and acc * dt / 2 in velocity
+    private static final double kPosTolerance = 1e-4;
+    private static final double kVelTolerance = 0.035;
+
+    public static void main(String[] args){
+        checkSampling();
+        checkEmptyFollowPath();
+        checkProfileIsReadOnly();
+        Benchmark benchmark = new Benchmark();
+
+        Benchmark.printHeader("trajectory generation");
+        for (double dt : kDts){
+            final TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, dt);
+            for (final double distance : kDistances){
+                benchmark.run("generateTrajectory d=" + distance + " dt=" + dt, () -> {
+                    Trajectory trajectory = generator.generateTrajectory(2, 3, distance);
+                    return trajectory.size();
+                });
+            }
+        }
+
+        final TrajectoryGenerator generator = new TrajectoryGenerator(12, 12, 0.005);
+        final Trajectory lead = generator.generateTrajectory(2, 3, 100);
+        benchmark.run("generateScaledTrajectory d=100.0 dt=0.005", () -> {
+            Trajectory follow = generator.generateScaledTrajectory(lead, 0.6);
+            return follow.size();
+        });
+
+        //follower running at 1ms against a 5ms trajectory
+        final double endTime = lead.getTime(lead.size() - 1);
+        final double[] time = new double[1];
+        benchmark.run("Trajectory.sample (random access)", () -> {
+            time[0] = time[0] >= endTime ? 0 : time[0] + 0.001;
+            return lead.sample(time[0]).getPos();
+        });
+        final Trajectory.Cursor cursor = lead.cursor();
+        benchmark.run("Trajectory.Cursor.moveTo (sequential)", () -> {
+            time[0] = time[0] >= endTime ? 0 : time[0] + 0.001;
+            return cursor.moveTo(time[0]).getPos();
+        });
+
+        final TrajectoryCurveGenerator curveGenerator = new TrajectoryCurveGenerator(12, 12, 0.005);
+        curveGenerator.generateTrajectoryCurve(2, 3, 90, 5);
+        final TrajectoryPair curve = new TrajectoryPair(curveGenerator.getLeadPath(), curveGenerator.getFollowPath());
+        final PoseTrack track = new PoseTrack(curve.getLeadPath().size());
+        benchmark.run("computePoseTrack 90deg r=5", () ->
+                TrajectoryCurveGenerator.computePoseTrack(curve, false, 2.4, track).size());
+        final PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) { }
+
+            @Override
+            public void write(byte[] b, int off, int len) { }
+        });
+        benchmark.run("plot 90deg r=5 (output discarded)", () -> {
+            curveGenerator.plot(discard);
+            return 0;
+        });
+    }
+
+    private static void checkSampling(){
+        TrapezoidalProfile profile = new TrapezoidalProfile(12, 12, 0.005, 2, 3, 10);
+        Trajectory materialized = profile.materialize();
+        Trajectory.Cursor cursor = profile.cursor();
+        //on the points themselves all three lookups have to read exactly the same state
+        for (int i = 0; i < profile.size(); i++){
+            double t = profile.getTime(i);
+            checkSample(profile, materialized, cursor, t, 1e-9, 1e-9);
+            if (Math.abs(profile.sample(t).getAcc() - cursor.getAcc()) > 1e-9){
+                throw new IllegalStateException("At t=" + t + " sample and the cursor read different accelerations");
+            }
+        }
+        //in between (and past both ends, so the clamping has to agree as well) they only differ by the interpolation
+        cursor.reset();
+        for (double t = 0; t < profile.getTotalTime() + 0.05; t += 0.0013){
+            checkSample(profile, materialized, cursor, t, kPosTolerance, kVelTolerance);
+        }
+        System.out.println("TrapezoidalProfile.sample, Cursor and materialize agree");
+    }
+
+    private static void checkSample(Trajectory profile, Trajectory materialized, Trajectory.Cursor cursor, double t,
+                                    double posTolerance, double velTolerance){
+        Trajectory.Point exact = profile.sample(t);
+        Trajectory.Point interpolated = materialized.sample(t);
+        cursor.moveTo(t);
+        if (Math.abs(exact.getPos() - cursor.getPos()) > posTolerance || Math.abs(exact.getPos() - interpolated.getPos()) > posTolerance
+                || Math.abs(exact.getVel() - cursor.getVel()) > velTolerance || Math.abs(exact.getVel() - interpolated.getVel()) > velTolerance){
+            throw new IllegalStateException(String.format("At t=%.4f sample reads pos %.5f vel %.5f, the cursor %.5f %.5f"
+                    + " and the materialized profile %.5f %.5f", t, exact.getPos(), exact.getVel(),
+                    cursor.getPos(), cursor.getVel(), interpolated.getPos(), interpolated.getVel()));
+        }
+    }
+
+    private static void checkEmptyFollowPath(){
+        Trajectory lead = new TrajectoryGenerator(12, 12, 0.005).createTrajectory(0, 0, 5);
+        Trajectory empty = new Trajectory(0);
+        if (empty.clampIndex(3) != -1 || empty.getPosClamped(3) != 0){
+            throw new IllegalStateException("An empty trajectory clamps to " + empty.clampIndex(3));
+        }
+        PoseTrack track = TrajectoryCurveGenerator.computePoseTrack(new TrajectoryPair(lead, empty), true, 2.4,
+                new PoseTrack(lead.size()));
+        if (track.size() != lead.size()){
+            throw new IllegalStateException("Pose track of a curve with an empty follow path has " + track.size() + " points");
+        }
+    }
+
+    private static void checkProfileIsReadOnly(){
+        TrapezoidalProfile profile = new TrapezoidalProfile(12, 12, 0.005, 0, 0, 5);
+        int size = profile.size();
+        try {
+            profile.clear();
+            throw new IllegalStateException("Clearing a TrapezoidalProfile didn't throw");
+        } catch (UnsupportedOperationException e){
+            //expected
+        }
+        if (profile.size() != size){
+            throw new IllegalStateException("Clearing a TrapezoidalProfile changed its size to " + profile.size());
+        }
+    }
+}
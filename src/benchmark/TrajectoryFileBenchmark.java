@@ -0,0 +1,106 @@
+package benchmark;
+
+import trajectory.RouteLibrary;
+import trajectory.RouteLibraryBuilder;
+import trajectory.Trajectory;
+import trajectory.TrajectoryFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+
+/**
+ * Compares generating a route library with opening the same library from a {@link TrajectoryFile},
+ * and checks that every value survives the round trip and that damaged files are rejected with an IOException.
+ */
+public class TrajectoryFileBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        RouteLibraryBuilder builder = new RouteLibraryBuilder(12, 12, 0.005, 2.4);
+        for (double startVel = 0; startVel <= 4; startVel += 1){
+            for (double endVel = 0; endVel <= 4; endVel += 1){
+                for (double degrees = 10; degrees <= 180; degrees += 10){
+                    for (double turnRadius = 3; turnRadius <= 9; turnRadius += 3){
+                        builder.addCurve(startVel, endVel, degrees, turnRadius);
+                    }
+                }
+                for (double distance = 1; distance <= 30; distance += 1){
+                    builder.addStraight(startVel, endVel, distance);
+                }
+            }
+        }
+        final DecimalFormat format = new DecimalFormat("#0.000");
+
+        long start = System.nanoTime();
+        RouteLibrary generated = builder.build();
+        System.out.println("generated " + generated.size() + " routes in " + format.format((System.nanoTime() - start) / 1e6) + " ms");
+
+        Path file = Files.createTempFile("routes", ".traj");
+        try {
+            TrajectoryFile.write(file, generated);
+            System.out.println("file is " + Files.size(file) / 1024 + " KB");
+
+            RouteLibrary loaded = null;
+            for (int run = 0; run < 5; run++){
+                start = System.nanoTime();
+                loaded = TrajectoryFile.open(file);
+                System.out.println("opened " + loaded.size() + " routes in " + format.format((System.nanoTime() - start) / 1e6) + " ms");
+            }
+
+            for (int i = 0; i < generated.size(); i++){
+                check(generated.get(i).getLeadPath(), loaded.get(i).getLeadPath());
+                check(generated.get(i).getFollowPath(), loaded.get(i).getFollowPath());
+            }
+            System.out.println("round trip OK");
+
+            //damaged copies have to fail with an IOException, not a runtime exception from a bad size or offset
+            byte[] bytes = Files.readAllBytes(file);
+            checkCorrupt(file, Arrays.copyOf(bytes, bytes.length / 2), "truncated");
+            checkCorrupt(file, patchInt(bytes, 8, -1), "negative route count");
+            checkCorrupt(file, patchInt(bytes, 8, Integer.MAX_VALUE), "huge route count");
+            checkCorrupt(file, patchLong(bytes, 16, Long.MAX_VALUE - 8), "lead offset past the end");
+            checkCorrupt(file, patchLong(bytes, 16, 0), "lead offset inside the header");
+            checkCorrupt(file, patchInt(bytes, 16 + 16, -5), "negative lead size");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void checkCorrupt(Path file, byte[] contents, String damage) throws IOException {
+        Files.write(file, contents);
+        try {
+            TrajectoryFile.open(file);
+            throw new IllegalStateException(damage + " file opened without an error");
+        } catch (IOException e){
+            System.out.println(damage + ": " + e.getMessage());
+        }
+    }
+
+    private static byte[] patchInt(byte[] bytes, int offset, int value){
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return copy;
+    }
+
+    private static byte[] patchLong(byte[] bytes, int offset, long value){
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putLong(offset, value);
+        return copy;
+    }
+
+    private static void check(Trajectory expected, Trajectory actual){
+        if (expected.size() != actual.size()){
+            throw new IllegalStateException("size " + actual.size() + " != " + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++){
+            if (expected.getPos(i) != actual.getPos(i) || expected.getVel(i) != actual.getVel(i)
+                    || expected.getAcc(i) != actual.getAcc(i) || expected.getTime(i) != actual.getTime(i)){
+                throw new IllegalStateException("point " + i + " differs");
+            }
+        }
+    }
+}
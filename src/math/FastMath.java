@@ -0,0 +1,168 @@
+package math;
+
+/**
+ * Cheaper replacements for the java.lang.Math trig the odometry uses on every step.
+ *
+ * Basically, when {@link #setEnabled(boolean) enabled}, {@link Rotation} and {@link RigidTransform#exp(Twist)} switch to:
+ *      sin/cos:  reduction to [-pi/4, pi/4] with a two part pi/2, then Taylor polynomials up to x^15/x^16.
+ *                Absolute error below 1E-15 for |x| up to 1E6.
+ *      atan2:    reduction to [0, 1], then atan(z) = atan(c) + atan((z - c) / (1 + z*c)) with c the closest of 65
+ *                tabulated points, which leaves |t| < 1/128 for a 4 term series. Absolute error below 1E-15.
+ *      exp:      series for sin(theta)/theta and (1 - cos(theta))/theta when |theta| < {@link #kSmallAngle},
+ *                so an odometry step needs no trig at all. Error below 1E-15 inside that range.
+ *      normalizing rotations: second order expansion of 1/sqrt(cos^2 + sin^2) instead of Math.hypot while the
+ *                squared length is within 1E-4 of 1 (error below 1E-12), Math.sqrt otherwise.
+ *
+ * The mode is global and off by default, so results stay bit for bit what they were unless you opt in.
+ * The flag is volatile, so flipping it is seen by every thread, but a step that's running when it flips may mix
+ * both modes; flip it at startup. See benchmark.FastMathCheck for the measured errors and speedup (an in place
+ * odometry update is about 1.4x faster, not the multi-fold gain this was meant for).
+ */
+public final class FastMath {
+
+    public static final double kSmallAngle = 0.1;
+
+    //volatile so a flip is seen by every thread; a loop that reads it mid-flip may still mix the two modes
+    private static volatile boolean enabled = false;
+
+    //pi/2 split so that k * kPiOver2High is exact for the k we reduce by
+    private static final double kPiOver2High = 1.5707963267341256;
+    private static final double kPiOver2Low = 6.077100506506192E-11;
+    private static final double kTwoOverPi = 2 / Math.PI;
+
+    private static final int kAtanSteps = 64;
+    private static final double[] kAtanTable = new double[kAtanSteps + 1];
+
+    static {
+        for (int i = 0; i <= kAtanSteps; i++){
+            kAtanTable[i] = Math.atan((double) i / kAtanSteps);
+        }
+    }
+
+    private FastMath(){
+    }
+
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled){
+        FastMath.enabled = enabled;
+    }
+
+    public static double sin(double x){
+        long quadrant = Math.round(x * kTwoOverPi);
+        double r = reduce(x, quadrant);
+        switch ((int) (quadrant & 3)){
+            case 0: return sinPoly(r);
+            case 1: return cosPoly(r);
+            case 2: return -sinPoly(r);
+            default: return -cosPoly(r);
+        }
+    }
+
+    public static double cos(double x){
+        long quadrant = Math.round(x * kTwoOverPi);
+        double r = reduce(x, quadrant);
+        switch ((int) (quadrant & 3)){
+            case 0: return cosPoly(r);
+            case 1: return -sinPoly(r);
+            case 2: return -cosPoly(r);
+            default: return sinPoly(r);
+        }
+    }
+
+    /**
+     * Writes cos(radians) and sin(radians) into out with a single range reduction
+     * @return out
+     */
+    static Rotation sinCosInto(double radians, Rotation out){
+        long quadrant = Math.round(radians * kTwoOverPi);
+        double r = reduce(radians, quadrant);
+        double s = sinPoly(r);
+        double c = cosPoly(r);
+        switch ((int) (quadrant & 3)){
+            case 0: return out.set(c, s, false);
+            case 1: return out.set(-s, c, false);
+            case 2: return out.set(-c, -s, false);
+            default: return out.set(s, -c, false);
+        }
+    }
+
+    private static double reduce(double x, long quadrant){
+        return (x - quadrant * kPiOver2High) - quadrant * kPiOver2Low;
+    }
+
+    private static double sinPoly(double x){
+        double x2 = x * x;
+        return x * (1 - x2 * (1.0 / 6) * (1 - x2 * (1.0 / 20) * (1 - x2 * (1.0 / 42) * (1 - x2 * (1.0 / 72)
+                * (1 - x2 * (1.0 / 110) * (1 - x2 * (1.0 / 156) * (1 - x2 * (1.0 / 210))))))));
+    }
+
+    private static double cosPoly(double x){
+        double x2 = x * x;
+        return 1 - x2 * 0.5 * (1 - x2 * (1.0 / 12) * (1 - x2 * (1.0 / 30) * (1 - x2 * (1.0 / 56) * (1 - x2 * (1.0 / 90)
+                * (1 - x2 * (1.0 / 132) * (1 - x2 * (1.0 / 182) * (1 - x2 * (1.0 / 240))))))));
+    }
+
+    /**
+     * Same conventions as {@link Math#atan2(double, double)} for finite inputs: the result is in [-pi, pi]
+     * and atan2(0, 0) is 0.
+     */
+    public static double atan2(double y, double x){
+        double absX = Math.abs(x);
+        double absY = Math.abs(y);
+        if (absX == 0 && absY == 0){
+            return Math.atan2(y, x);
+        }
+        boolean swap = absY > absX;
+        double z = swap ? absX / absY : absY / absX;
+        double angle = atanUnit(z);
+        if (swap){
+            angle = Math.PI / 2 - angle;
+        }
+        if (x < 0){
+            angle = Math.PI - angle;
+        }
+        return y < 0 || (y == 0 && 1 / y < 0) ? -angle : angle;
+    }
+
+    /**
+     * atan(z) for z in [0, 1]
+     */
+    private static double atanUnit(double z){
+        int index = (int) (z * kAtanSteps + 0.5);
+        double c = (double) index / kAtanSteps;
+        double t = (z - c) / (1 + z * c);
+        double t2 = t * t;
+        return kAtanTable[index] + t * (1 - t2 * (1.0 / 3 - t2 * (1.0 / 5 - t2 * (1.0 / 7))));
+    }
+
+    /**
+     * sin(theta)/theta, for |theta| < {@link #kSmallAngle}.
+     * Public so other code that steps small rotations (like trajectory.RouteBuilder) uses the same series.
+     */
+    public static double sinOverTheta(double theta){
+        double t2 = theta * theta;
+        return 1 - t2 * (1.0 / 6) * (1 - t2 * (1.0 / 20) * (1 - t2 * (1.0 / 42) * (1 - t2 * (1.0 / 72))));
+    }
+
+    /**
+     * (1 - cos(theta))/theta, for |theta| < {@link #kSmallAngle}
+     */
+    public static double oneMinusCosOverTheta(double theta){
+        double t2 = theta * theta;
+        return theta * 0.5 * (1 - t2 * (1.0 / 12) * (1 - t2 * (1.0 / 30) * (1 - t2 * (1.0 / 56) * (1 - t2 * (1.0 / 90)))));
+    }
+
+    /**
+     * 1/sqrt(squaredLength), expanded around 1 when squaredLength is close to it
+     */
+    static double inverseLength(double squaredLength){
+        double error = squaredLength - 1;
+        if (Math.abs(error) < 1E-4){
+            return 1 - 0.5 * error + 0.375 * error * error;
+        }
+        return 1 / Math.sqrt(squaredLength);
+    }
+}
@@ -1,5 +1,8 @@
 package math;
 
+import metrics.Counter;
+import metrics.Metrics;
+
 /**
  * Class representing a 2d Rigid-Body Homogeneous Transformation Matrix
  * Basically combines {@link Rotation} and {@link Translation}
@@ -10,6 +13,8 @@ package math;
 public class RigidTransform {
 
     private static final double kEpsilon = 1E-9;
+    //exp is too cheap to time, so it is only counted
+    private static final Counter kExpCalls = Metrics.counter("RigidTransform.exp");
     private Translation translation;
     private Rotation rotation;
 
@@ -30,6 +35,19 @@ public class RigidTransform {
         return rotation;
     }
 
+    /**
+     * Copies another transform into this one in place.
+     * This writes into the {@link Translation} and {@link Rotation} this transform holds, so only use it on
+     * transforms that own their parts (for example ones created with {@link #RigidTransform()}).
+     *
+     * @return this transform
+     */
+    public RigidTransform set(RigidTransform other){
+        translation.set(other.translation);
+        rotation.set(other.rotation);
+        return this;
+    }
+
     /**
      * Transforms (rotates + translates) this transformation matrix by another transformation matrix
      * Basically multiplies two transformation matrices (see above the class declaration) together.
@@ -44,6 +62,29 @@ public class RigidTransform {
         return new RigidTransform(translation.translate(other.getTranslation().rotate(rotation)), rotation.rotate(other.getRotation()));
     }
 
+    /**
+     * Same as {@link #transform(RigidTransform)}, but writes the result into out instead of allocating.
+     * out can be this or other, see {@link #set(RigidTransform)} for what out has to own.
+     *
+     * @param other Transformation matrix to transform this matrix by
+     * @param out   Where the transformed matrix is written
+     * @return out
+     */
+    public RigidTransform transformInto(RigidTransform other, RigidTransform out){
+        Translation otherTranslation = other.getTranslation();
+        Rotation otherRotation = other.getRotation();
+        double rotatedX = rotation.cos() * otherTranslation.x() - rotation.sin() * otherTranslation.y();
+        double rotatedY = rotation.sin() * otherTranslation.x() + rotation.cos() * otherTranslation.y();
+        //same rounding to 0 as the Translation that transform() creates in between
+        rotatedX = Math.abs(rotatedX) < kEpsilon ? 0.0 : rotatedX;
+        rotatedY = Math.abs(rotatedY) < kEpsilon ? 0.0 : rotatedY;
+        double cos = rotation.cos()*otherRotation.cos() - rotation.sin()*otherRotation.sin();
+        double sin = rotation.sin()*otherRotation.cos() + rotation.cos()*otherRotation.sin();
+        out.translation.set(translation.x() + rotatedX, translation.y() + rotatedY);
+        out.rotation.set(cos, sin, true);
+        return out;
+    }
+
     /**
      * Calculates the inverse of this transformation matrix
      * Basically what undoes this transform
@@ -54,6 +95,21 @@ public class RigidTransform {
         return new RigidTransform(translation.inverse().rotate(rotation.inverse()), rotation.inverse());
     }
 
+    /**
+     * Same as {@link #inverse()}, but writes the result into out, which can be this.
+     * See {@link #set(RigidTransform)} for what out has to own.
+     * @return out
+     */
+    public RigidTransform inverseInto(RigidTransform out){
+        double cos = rotation.cos();
+        double sin = rotation.sin();
+        double x = Math.abs(translation.x()) < kEpsilon ? 0.0 : -translation.x();
+        double y = Math.abs(translation.y()) < kEpsilon ? 0.0 : -translation.y();
+        out.translation.set(cos * x + sin * y, -sin * x + cos * y);
+        out.rotation.set(cos, -sin, false);
+        return out;
+    }
+
     /**
      * ethaneade.com/lie_groups.pdf
      * Exponential map for 2D rigid transformation
@@ -74,30 +130,64 @@ public class RigidTransform {
      * @return Transformation based on the twist
      */
     public static RigidTransform exp(Twist twist){
+        return expInto(twist, new RigidTransform());
+    }
+
+    /**
+     * Same as {@link #exp(Twist)}, but writes the transformation into out instead of allocating.
+     * See {@link #set(RigidTransform)} for what out has to own.
+     *
+     * @param twist Input twist
+     * @param out   Where the transformation is written
+     * @return out
+     */
+    public static RigidTransform expInto(Twist twist, RigidTransform out){
+        kExpCalls.increment();
         double dtheta = twist.dtheta();
-        double cos = Math.cos(dtheta);
-        double sin = Math.sin(dtheta);
-        Rotation rot = new Rotation(cos, sin);
+        double cos;
+        double sin;
         double sin_theta_over_theta;
         double one_minus_cos_theta_over_theta;
-        //if theta is very small, we need to use taylor series to approximate the values
-        //as we can't divide by 0
-        if (Math.abs(dtheta) < kEpsilon){
-            sin_theta_over_theta = 1.0-Math.pow(dtheta, 2)/6.0+Math.pow(dtheta, 4)/120.0;
-            one_minus_cos_theta_over_theta = 1.0/2.0*dtheta-Math.pow(dtheta, 3)/24.0+Math.pow(twist.dtheta(), 5)/720.0;
+        boolean fast = FastMath.isEnabled();
+        if (fast && Math.abs(dtheta) < FastMath.kSmallAngle){
+            //odometry steps are small angles, where a series gets everything without any trig
+            sin_theta_over_theta = FastMath.sinOverTheta(dtheta);
+            one_minus_cos_theta_over_theta = FastMath.oneMinusCosOverTheta(dtheta);
+            sin = dtheta * sin_theta_over_theta;
+            cos = 1.0 - dtheta * one_minus_cos_theta_over_theta;
         }
-        else{
-            sin_theta_over_theta = sin/dtheta;
-            one_minus_cos_theta_over_theta = (1.0-cos)/dtheta;
+        else {
+            cos = fast ? FastMath.cos(dtheta) : Math.cos(dtheta);
+            sin = fast ? FastMath.sin(dtheta) : Math.sin(dtheta);
+            //if theta is very small, we need to use taylor series to approximate the values
+            //as we can't divide by 0
+            if (Math.abs(dtheta) < kEpsilon){
+                sin_theta_over_theta = 1.0-Math.pow(dtheta, 2)/6.0+Math.pow(dtheta, 4)/120.0;
+                one_minus_cos_theta_over_theta = 1.0/2.0*dtheta-Math.pow(dtheta, 3)/24.0+Math.pow(twist.dtheta(), 5)/720.0;
+            }
+            else{
+                sin_theta_over_theta = sin/dtheta;
+                one_minus_cos_theta_over_theta = (1.0-cos)/dtheta;
+            }
         }
-        Translation translation = new Translation(sin_theta_over_theta*twist.dx(), one_minus_cos_theta_over_theta*twist.dx());
-        return new RigidTransform(translation, rot);
+        out.translation.set(sin_theta_over_theta*twist.dx() - one_minus_cos_theta_over_theta*twist.dy(),
+                one_minus_cos_theta_over_theta*twist.dx() + sin_theta_over_theta*twist.dy());
+        out.rotation.set(cos, sin, false);
+        return out;
     }
 
     /**
      * Inverse of above
      */
     public static Twist log(RigidTransform transform){
+        return logInto(transform, new Twist());
+    }
+
+    /**
+     * Same as {@link #log(RigidTransform)}, but writes the twist into out instead of allocating
+     * @return out
+     */
+    public static Twist logInto(RigidTransform transform, Twist out){
         double dtheta = transform.getRotation().radians();
         double half_dtheta = dtheta/2.0;
         double cos_minus_one = transform.rotation.cos() - 1.0;
@@ -108,8 +198,41 @@ public class RigidTransform {
         else{
             halftheta_by_tan_of_halftheta = -(half_dtheta * transform.getRotation().sin())/cos_minus_one;
         }
-        Translation ret = transform.getTranslation().rotate(new Rotation(halftheta_by_tan_of_halftheta, -half_dtheta));
-        return new Twist(ret.x(), ret.y(), dtheta);
+        //rotate the translation by (halftheta_by_tan_of_halftheta, -half_dtheta), rounding to 0 like Rotation and Translation do
+        double rotCos = Math.abs(halftheta_by_tan_of_halftheta) < kEpsilon ? 0.0 : halftheta_by_tan_of_halftheta;
+        double rotSin = Math.abs(half_dtheta) < kEpsilon ? 0.0 : -half_dtheta;
+        Translation translation = transform.getTranslation();
+        double x = rotCos * translation.x() - rotSin * translation.y();
+        double y = rotSin * translation.x() + rotCos * translation.y();
+        return out.set(Math.abs(x) < kEpsilon ? 0.0 : x, Math.abs(y) < kEpsilon ? 0.0 : y, dtheta);
+    }
+
+    /**
+     * Interpolates between this transform and another one along the constant curvature arc joining them
+     * (basically exp(log(this^-1 * other) * fraction)), writing the result into out.
+     * See {@link #set(RigidTransform)} for what out has to own; it can be this or other.
+     *
+     * @param other    transform at fraction 1
+     * @param fraction how far along to go, 0 gives this and 1 gives other
+     * @param scratch  transform the in between steps are written to, can't be this, other or out
+     * @param twist    twist the in between steps are written to
+     * @return out
+     */
+    public RigidTransform interpolateInto(RigidTransform other, double fraction, RigidTransform scratch, Twist twist, RigidTransform out){
+        if (fraction <= 0){
+            return out.set(this);
+        }
+        if (fraction >= 1){
+            return out.set(other);
+        }
+        inverseInto(scratch).transformInto(other, scratch);
+        logInto(scratch, twist);
+        twist.set(twist.dx() * fraction, twist.dy() * fraction, twist.dtheta() * fraction);
+        return transformInto(expInto(twist, scratch), out);
+    }
+
+    public RigidTransform interpolate(RigidTransform other, double fraction){
+        return interpolateInto(other, fraction, new RigidTransform(), new Twist(), new RigidTransform());
     }
 
     public boolean isColinear(RigidTransform other){
@@ -19,9 +19,7 @@ public class Rotation {
      * @param normalize whether or not we should "normalize" this rotation {@link #normalize()}
      */
     public Rotation(double cos, double sin, boolean normalize) {
-        this.cos = Math.abs(cos) < kEpsilon ? 0.0 : cos;
-        this.sin = Math.abs(sin) < kEpsilon ? 0.0 : sin;
-        if (normalize) normalize();
+        set(cos, sin, normalize);
     }
 
     public Rotation(double cos, double sin){
@@ -49,6 +47,18 @@ public class Rotation {
      * Normalizes the rotatation matrix by forcing the sin and cos values to be in the unit circle.
      */
     private void normalize() {
+        if (FastMath.isEnabled()) {
+            double squaredMagnitude = cos * cos + sin * sin;
+            if (squaredMagnitude > kEpsilon * kEpsilon) {
+                double scale = FastMath.inverseLength(squaredMagnitude);
+                cos *= scale;
+                sin *= scale;
+            } else {
+                cos = 1.0;
+                sin = 0.0;
+            }
+            return;
+        }
         double magnitude = Math.hypot(cos, sin);
         if (magnitude > kEpsilon) {
             cos /= magnitude;
@@ -60,6 +70,9 @@ public class Rotation {
     }
 
     public static Rotation fromRadians(double radians){
+        if (FastMath.isEnabled()){
+            return FastMath.sinCosInto(radians, new Rotation());
+        }
         return new Rotation(Math.cos(radians), Math.sin(radians));
     }
 
@@ -67,6 +80,42 @@ public class Rotation {
         return fromRadians(Math.toRadians(degrees));
     }
 
+    /**
+     * In place version of {@link #Rotation(double, double, boolean)}
+     * Rotations are normally treated as immutable, so only do this to rotations nobody else holds on to.
+     *
+     * @return this rotation matrix
+     */
+    public Rotation set(double cos, double sin, boolean normalize) {
+        this.cos = Math.abs(cos) < kEpsilon ? 0.0 : cos;
+        this.sin = Math.abs(sin) < kEpsilon ? 0.0 : sin;
+        if (normalize) normalize();
+        return this;
+    }
+
+    public Rotation set(Rotation other) {
+        this.cos = other.cos;
+        this.sin = other.sin;
+        return this;
+    }
+
+    /**
+     * In place version of {@link #fromRadians(double)}
+     */
+    public Rotation setRadians(double radians) {
+        if (FastMath.isEnabled()) {
+            return FastMath.sinCosInto(radians, this);
+        }
+        return set(Math.cos(radians), Math.sin(radians), false);
+    }
+
+    /**
+     * In place version of {@link #fromDegrees(double)}
+     */
+    public Rotation setDegrees(double degrees) {
+        return setRadians(Math.toRadians(degrees));
+    }
+
     public double cos() {
         return cos;
     }
@@ -88,6 +137,9 @@ public class Rotation {
      * @return The angle in radians
      */
     public double radians(){
+        if (FastMath.isEnabled()){
+            return FastMath.atan2(sin, cos);
+        }
         return Math.atan2(sin, cos);
     }
 
@@ -123,6 +175,18 @@ public class Rotation {
                 this.sin*other.cos + this.cos*other.sin, true);
     }
 
+    /**
+     * Same as {@link #rotate(Rotation)}, but writes the result into out instead of allocating a new rotation
+     *
+     * @param other Angle to rotate this rotation matrix by
+     * @param out   Where the rotated rotation matrix is written, can be this or other
+     * @return out
+     */
+    public Rotation rotateInto(Rotation other, Rotation out){
+        return out.set(this.cos*other.cos - this.sin*other.sin,
+                this.sin*other.cos + this.cos*other.sin, true);
+    }
+
     /**
      * Calculates the inverse of this rotation matrix
      * Basically what when multiplied after this matrix will turn it into the identity matrix
@@ -144,6 +208,14 @@ public class Rotation {
         return new Rotation(this.cos, -this.sin);
     }
 
+    /**
+     * Same as {@link #inverse()}, but writes the result into out
+     * @return out
+     */
+    public Rotation inverseInto(Rotation out){
+        return out.set(this.cos, -this.sin, false);
+    }
+
     /**
      * Converts this rotation matrix to a translation vector
      * Basically, we are creating the unit vector with the angle of this rotation matrix from the positive x-axis
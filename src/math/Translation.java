@@ -17,8 +17,7 @@ public class Translation {
      * @param y y value
      */
     public Translation(double x, double y) {
-        this.x = Math.abs(x) < kEpsilon ? 0.0 : x;
-        this.y = Math.abs(y) < kEpsilon ? 0.0 : y;
+        set(x, y);
     }
 
     /**
@@ -38,6 +37,24 @@ public class Translation {
         this(second.x - first.x, second.y - first.y);
     }
 
+    /**
+     * In place version of {@link #Translation(double, double)}
+     * Translations are normally treated as immutable, so only do this to translations nobody else holds on to.
+     *
+     * @return this translation
+     */
+    public Translation set(double x, double y) {
+        this.x = Math.abs(x) < kEpsilon ? 0.0 : x;
+        this.y = Math.abs(y) < kEpsilon ? 0.0 : y;
+        return this;
+    }
+
+    public Translation set(Translation other) {
+        this.x = other.x;
+        this.y = other.y;
+        return this;
+    }
+
     public double x() {
         return x;
     }
@@ -56,6 +73,17 @@ public class Translation {
         return new Translation(x + other.x, y + other.y);
     }
 
+    /**
+     * Same as {@link #translate(Translation)}, but writes the result into out
+     *
+     * @param other vector to translate by
+     * @param out   where the translated vector is written, can be this or other
+     * @return out
+     */
+    public Translation translateInto(Translation other, Translation out) {
+        return out.set(x + other.x, y + other.y);
+    }
+
     /**
      * Rotate a translation vector.
      *
@@ -68,6 +96,19 @@ public class Translation {
                 rotation.sin() * x + rotation.cos() * y);
     }
 
+    /**
+     * Same as {@link #rotate(Rotation)}, but writes the result into out
+     *
+     * @param rotation rotation matrix to multiply the translation vector by
+     * @param out      where the rotated vector is written, can be this
+     * @return out
+     */
+    public Translation rotateInto(Rotation rotation, Translation out) {
+        return out.set(
+                rotation.cos() * x - rotation.sin() * y,
+                rotation.sin() * x + rotation.cos() * y);
+    }
+
     /**
      * Inverse of this translation. Basically what "undoes" this translation.
      *
@@ -21,6 +21,17 @@ public class Twist {
         this(0,0,0);
     }
 
+    /**
+     * Overwrites this twist in place, for code that reuses one twist instead of allocating a new one every loop
+     * @return this twist
+     */
+    public Twist set(double dx, double dy, double dtheta){
+        this.dx = dx;
+        this.dy = dy;
+        this.dtheta = dtheta;
+        return this;
+    }
+
     public double dx(){
         return dx;
     }
@@ -0,0 +1,48 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events, for example cache hits. Safe to increment from any number of threads without allocating.
+ * Increments are ignored while metrics are {@link Metrics#setEnabled(boolean) disabled}.
+ */
+public class Counter implements CounterMBean {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name){
+        this.name = name;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public void increment(){
+        if (Metrics.isEnabled()){
+            count.increment();
+        }
+    }
+
+    public void add(long amount){
+        if (Metrics.isEnabled()){
+            count.add(amount);
+        }
+    }
+
+    @Override
+    public long getCount(){
+        return count.sum();
+    }
+
+    @Override
+    public void reset(){
+        count.reset();
+    }
+
+    @Override
+    public String toString(){
+        return name + " " + getCount();
+    }
+}
@@ -0,0 +1,212 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with power of two buckets: bucket 0 counts zeros, bucket i counts values in [2^(i-1), 2^i).
+ * That keeps recording to a couple of atomic adds with no allocation, at the price of percentiles only being
+ * accurate to a factor of two (they report the upper bound of the bucket they fall in).
+ *
+ * Usual use around a hot path:
+ *      long start = histogram.start();
+ *      ...
+ *      histogram.stop(start);
+ *
+ * Reading the clock twice can cost more than a sub microsecond operation itself, so histograms for those can be
+ * created with a sample interval: only every n-th {@link #start()} reads the clock, and the count is the number
+ * of sampled calls rather than all of them.
+ */
+public class Histogram implements HistogramMBean {
+
+    public static final int kBuckets = 64;
+
+    private final String name;
+    private final int sampleMask;
+    //racy on purpose, losing an increment only shifts which call gets sampled
+    private int calls;
+    private final AtomicLongArray buckets = new AtomicLongArray(kBuckets);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, int sampleInterval){
+        if (Integer.bitCount(sampleInterval) != 1){
+            throw new IllegalArgumentException("Sample interval must be a power of two");
+        }
+        this.name = name;
+        this.sampleMask = sampleInterval - 1;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public int getSampleInterval(){
+        return sampleMask + 1;
+    }
+
+    /**
+     * @return the current time to pass to {@link #stop(long)}, or 0 if metrics are disabled
+     *         or this call isn't sampled
+     */
+    public long start(){
+        if (!Metrics.isEnabled() || (calls++ & sampleMask) != 0){
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since start, a value from {@link #start()} or {@link Metrics#start()}. Does nothing if start is 0,
+     * which is what those return for calls that shouldn't be recorded.
+     */
+    public void stop(long start){
+        if (start != 0){
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(long value){
+        if (!Metrics.isEnabled()){
+            return;
+        }
+        value = Math.max(0, value);
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value));
+    }
+
+    private static int bucket(long value){
+        return Math.min(64 - Long.numberOfLeadingZeros(value), kBuckets - 1);
+    }
+
+    /**
+     * Copies the current state. Other threads may be recording at the same time,
+     * so the count and the buckets can be off from each other by a few values.
+     */
+    public Snapshot snapshot(){
+        long[] copy = new long[kBuckets];
+        for (int i = 0; i < kBuckets; i++){
+            copy[i] = buckets.get(i);
+        }
+        return new Snapshot(name, count.get(), sum.get(), max.get(), copy);
+    }
+
+    @Override
+    public long getCount(){
+        return count.get();
+    }
+
+    @Override
+    public double getMean(){
+        return snapshot().getMean();
+    }
+
+    @Override
+    public long getMax(){
+        return max.get();
+    }
+
+    @Override
+    public long getMedian(){
+        return snapshot().getPercentile(0.5);
+    }
+
+    @Override
+    public long get99thPercentile(){
+        return snapshot().getPercentile(0.99);
+    }
+
+    @Override
+    public long[] getBuckets(){
+        return snapshot().getBuckets();
+    }
+
+    @Override
+    public void reset(){
+        for (int i = 0; i < kBuckets; i++){
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString(){
+        return snapshot().toString();
+    }
+
+    /**
+     * Immutable copy of a histogram
+     */
+    public static class Snapshot {
+        private final String name;
+        private final long count, sum, max;
+        private final long[] buckets;
+
+        Snapshot(String name, long count, long sum, long max, long[] buckets){
+            this.name = name;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        public long getCount(){
+            return count;
+        }
+
+        public long getSum(){
+            return sum;
+        }
+
+        public long getMax(){
+            return max;
+        }
+
+        public double getMean(){
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long[] getBuckets(){
+            return buckets.clone();
+        }
+
+        /**
+         * @param fraction between 0 and 1, for example 0.99
+         * @return upper bound of the bucket the percentile falls in, capped at the max
+         */
+        public long getPercentile(double fraction){
+            long total = 0;
+            for (long bucket : buckets){
+                total += bucket;
+            }
+            if (total == 0){
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < kBuckets; i++){
+                seen += buckets[i];
+                if (seen >= rank && buckets[i] != 0){
+                    return i == 0 ? 0 : Math.min((1L << i) - 1, max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%s count %d, mean %.1fns, p50 %dns, p99 %dns, max %dns",
+                    name, count, getMean(), getPercentile(0.5), getPercentile(0.99), max);
+        }
+    }
+}
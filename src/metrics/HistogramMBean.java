@@ -0,0 +1,21 @@
+package metrics;
+
+/**
+ * JMX view of a {@link Histogram}, all times in nanoseconds
+ */
+public interface HistogramMBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getMedian();
+
+    long get99thPercentile();
+
+    long[] getBuckets();
+
+    void reset();
+}
@@ -0,0 +1,210 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the {@link Counter counters} and {@link Histogram histograms} the hot paths record into.
+ *
+ * {@link #snapshot()} gives the numbers to code. After {@link #enableJmx()} every metric is also registered as an
+ * MBean under the "motionprofiling" domain, so JConsole can watch it live, next to a MetricsControl MBean to switch
+ * recording on and off at runtime. Nothing touches JMX before that, so just loading an instrumented class (like
+ * RigidTransform) has no side effects.
+ *
+ * Metrics start disabled unless the JVM runs with -Dmetrics.enabled=true. While disabled, recording costs one
+ * volatile read and a branch.
+ */
+public final class Metrics {
+
+    public static final String kDomain = "motionprofiling";
+
+    private static volatile boolean enabled = Boolean.getBoolean("metrics.enabled");
+    private static volatile boolean jmx;
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics(){
+    }
+
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled){
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return the current time for {@link Histogram#stop(long)}, or 0 while disabled so the timed code
+     *         doesn't pay for reading the clock
+     */
+    public static long start(){
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registers the MetricsControl MBean and every metric, now and from then on, with the platform MBean server.
+     * Calling it again does nothing.
+     */
+    public static synchronized void enableJmx(){
+        if (jmx){
+            return;
+        }
+        //set first, so a metric created while we go through the existing ones registers itself
+        jmx = true;
+        register("MetricsControl", "control", new MetricsControlMBean() {
+            @Override
+            public boolean isEnabled(){
+                return Metrics.isEnabled();
+            }
+
+            @Override
+            public void setEnabled(boolean enabled){
+                Metrics.setEnabled(enabled);
+            }
+
+            @Override
+            public void reset(){
+                Metrics.reset();
+            }
+        }, MetricsControlMBean.class);
+        for (Counter counter : counters.values()){
+            register("Counter", counter.getName(), counter, CounterMBean.class);
+        }
+        for (Histogram histogram : histograms.values()){
+            register("Histogram", histogram.getName(), histogram, HistogramMBean.class);
+        }
+    }
+
+    public static boolean isJmxEnabled(){
+        return jmx;
+    }
+
+    /**
+     * Gets the counter with the given name, creating it the first time
+     */
+    public static Counter counter(String name){
+        Counter counter = counters.get(name);
+        if (counter == null){
+            counter = counters.computeIfAbsent(name, Counter::new);
+            if (jmx){
+                register("Counter", name, counter, CounterMBean.class);
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Gets the histogram with the given name, creating it the first time
+     */
+    public static Histogram histogram(String name){
+        return histogram(name, 1);
+    }
+
+    /**
+     * Same as {@link #histogram(String)} for a histogram that only times every sampleInterval-th call
+     * (see {@link Histogram#start()}). The interval only applies when the histogram is created.
+     */
+    public static Histogram histogram(String name, int sampleInterval){
+        Histogram histogram = histograms.get(name);
+        if (histogram == null){
+            histogram = histograms.computeIfAbsent(name, key -> new Histogram(key, sampleInterval));
+            if (jmx){
+                register("Histogram", name, histogram, HistogramMBean.class);
+            }
+        }
+        return histogram;
+    }
+
+    public static void reset(){
+        for (Counter counter : counters.values()){
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()){
+            histogram.reset();
+        }
+    }
+
+    public static Snapshot snapshot(){
+        Map<String, Long> counts = new TreeMap<>();
+        for (Counter counter : counters.values()){
+            counts.put(counter.getName(), counter.getCount());
+        }
+        Map<String, Histogram.Snapshot> times = new TreeMap<>();
+        for (Histogram histogram : histograms.values()){
+            times.put(histogram.getName(), histogram.snapshot());
+        }
+        return new Snapshot(counts, times);
+    }
+
+    private static <T> void register(String type, String name, T bean, Class<T> mbeanInterface){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(kDomain + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)){
+                server.registerMBean(new StandardMBean(bean, mbeanInterface), objectName);
+            }
+        } catch (JMException | SecurityException e){
+            //JMX is only for watching, recording works the same without it
+        }
+    }
+
+    /**
+     * Values of every metric at one point in time
+     */
+    public static class Snapshot {
+        private final Map<String, Long> counters;
+        private final Map<String, Histogram.Snapshot> histograms;
+
+        Snapshot(Map<String, Long> counters, Map<String, Histogram.Snapshot> histograms){
+            this.counters = Collections.unmodifiableMap(counters);
+            this.histograms = Collections.unmodifiableMap(histograms);
+        }
+
+        /**
+         * @return counter values by name
+         */
+        public Map<String, Long> getCounters(){
+            return counters;
+        }
+
+        /**
+         * @return histograms by name
+         */
+        public Map<String, Histogram.Snapshot> getHistograms(){
+            return histograms;
+        }
+
+        /**
+         * @return the counter's value, 0 if it doesn't exist
+         */
+        public long getCount(String name){
+            Long count = counters.get(name);
+            return count == null ? 0 : count;
+        }
+
+        public Histogram.Snapshot getHistogram(String name){
+            return histograms.get(name);
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<String, Long> counter : counters.entrySet()){
+                builder.append(counter.getKey()).append(' ').append(counter.getValue()).append('\n');
+            }
+            for (Histogram.Snapshot histogram : histograms.values()){
+                builder.append(histogram).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
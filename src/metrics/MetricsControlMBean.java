@@ -0,0 +1,13 @@
+package metrics;
+
+/**
+ * JMX switch for {@link Metrics}
+ */
+public interface MetricsControlMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,196 @@
+package path;
+
+import math.RigidTransform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Smooth path through a list of waypoints, made of one {@link QuinticHermiteSpline} per pair of consecutive waypoints.
+ *
+ * Everything is worked out once when the path is built: each spline is sampled at regular steps of t and the samples
+ * go into primitive tables of (distance along the path, x, y, heading cos/sin, curvature). The distance between samples
+ * is integrated with Simpson's rule on the spline's speed. After that a query by distance is a binary search
+ * over the distance table plus a linear interpolation between the two samples around it, so it is cheap enough to
+ * run every control loop and never integrates anything.
+ *
+ * Immutable once built, so it can be shared between threads.
+ */
+public class Path {
+
+    public static final int kDefaultSamplesPerSpline = 128;
+
+    private final List<QuinticHermiteSpline> splines;
+    private final double[] distance;
+    private final double[] x;
+    private final double[] y;
+    private final double[] cos;
+    private final double[] sin;
+    private final double[] curvature;
+    private final int size;
+
+    public Path(List<RigidTransform> waypoints){
+        this(waypoints, kDefaultSamplesPerSpline);
+    }
+
+    /**
+     * @param waypoints        poses to pass through, with their headings, at least 2
+     * @param samplesPerSpline table entries per spline, more is more accurate between samples and uses more memory
+     */
+    public Path(List<RigidTransform> waypoints, int samplesPerSpline){
+        if (waypoints.size() < 2){
+            throw new IllegalArgumentException("A path needs at least 2 waypoints");
+        }
+        if (samplesPerSpline < 1){
+            throw new IllegalArgumentException("Need at least 1 sample per spline");
+        }
+        List<QuinticHermiteSpline> splines = new ArrayList<>(waypoints.size() - 1);
+        for (int i = 0; i + 1 < waypoints.size(); i++){
+            splines.add(new QuinticHermiteSpline(waypoints.get(i), waypoints.get(i + 1)));
+        }
+        this.splines = Collections.unmodifiableList(splines);
+
+        size = splines.size() * samplesPerSpline + 1;
+        distance = new double[size];
+        x = new double[size];
+        y = new double[size];
+        cos = new double[size];
+        sin = new double[size];
+        curvature = new double[size];
+
+        RigidTransform first = waypoints.get(0);
+        cos[0] = first.getRotation().cos();
+        sin[0] = first.getRotation().sin();
+        store(0, splines.get(0), 0);
+        int index = 0;
+        for (QuinticHermiteSpline spline : splines){
+            //the first sample of each spline is the last one of the previous spline, so it is skipped
+            double step = 1.0 / samplesPerSpline;
+            for (int j = 1; j <= samplesPerSpline; j++){
+                double t0 = (j - 1) * step;
+                double t1 = j * step;
+                double length = step / 6 * (spline.getSpeed(t0) + 4 * spline.getSpeed((t0 + t1) / 2) + spline.getSpeed(t1));
+                index++;
+                distance[index] = distance[index - 1] + length;
+                store(index, spline, t1);
+            }
+        }
+    }
+
+    private void store(int index, QuinticHermiteSpline spline, double t){
+        x[index] = spline.getX(t);
+        y[index] = spline.getY(t);
+        curvature[index] = spline.getCurvature(t);
+        double dx = spline.getDx(t);
+        double dy = spline.getDy(t);
+        double speed = Math.hypot(dx, dy);
+        if (speed > 0){
+            cos[index] = dx / speed;
+            sin[index] = dy / speed;
+        } else if (index > 0){
+            //standing still in t (two identical waypoints), keep the previous heading
+            cos[index] = cos[index - 1];
+            sin[index] = sin[index - 1];
+        }
+    }
+
+    public List<QuinticHermiteSpline> getSplines(){
+        return splines;
+    }
+
+    /**
+     * Total length of the path
+     */
+    public double getLength(){
+        return distance[size - 1];
+    }
+
+    /**
+     * Number of samples in the tables
+     */
+    public int size(){
+        return size;
+    }
+
+    public double getDistance(int index){
+        return distance[index];
+    }
+
+    public double getX(int index){
+        return x[index];
+    }
+
+    public double getY(int index){
+        return y[index];
+    }
+
+    public double getHeadingCos(int index){
+        return cos[index];
+    }
+
+    public double getHeadingSin(int index){
+        return sin[index];
+    }
+
+    public double getCurvature(int index){
+        return curvature[index];
+    }
+
+    /**
+     * @return index of the last sample at or before the distance, clamped to [0, size - 2] so there is always
+     *         a next sample to interpolate towards
+     */
+    public int indexAt(double distance){
+        int low = 0;
+        int high = size - 1;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (this.distance[middle] <= distance){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return Math.max(0, Math.min(low - 1, size - 2));
+    }
+
+    private double fraction(int index, double distance){
+        double span = this.distance[index + 1] - this.distance[index];
+        if (span <= 0){
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (distance - this.distance[index]) / span));
+    }
+
+    /**
+     * Writes the pose at the given distance along the path into out, without allocating.
+     * Distances outside the path are clamped to its ends.
+     *
+     * @param out transform to write into, has to own its parts (see {@link RigidTransform#set(RigidTransform)})
+     * @return out
+     */
+    public RigidTransform getPoseAt(double distance, RigidTransform out){
+        int index = indexAt(distance);
+        double fraction = fraction(index, distance);
+        out.getTranslation().set(interpolate(x, index, fraction), interpolate(y, index, fraction));
+        out.getRotation().set(interpolate(cos, index, fraction), interpolate(sin, index, fraction), true);
+        return out;
+    }
+
+    public RigidTransform getPoseAt(double distance){
+        return getPoseAt(distance, new RigidTransform());
+    }
+
+    /**
+     * Curvature (1/radius, positive turning counterclockwise) at the given distance along the path
+     */
+    public double getCurvatureAt(double distance){
+        int index = indexAt(distance);
+        return interpolate(curvature, index, fraction(index, distance));
+    }
+
+    private static double interpolate(double[] column, int index, double fraction){
+        return column[index] + (column[index + 1] - column[index]) * fraction;
+    }
+}
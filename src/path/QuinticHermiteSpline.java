@@ -0,0 +1,101 @@
+package path;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+
+/**
+ * Quintic Hermite spline between two poses, parameterized by t in [0, 1].
+ *
+ * Basically x(t) and y(t) are fifth order polynomials picked so the position, first derivative (velocity) and
+ * second derivative (acceleration) match at both ends. The first derivative points along each pose's heading
+ * with a length of {@link #kTangentScale} times the distance between the poses, and the second derivative is 0,
+ * so splines joined end to end have continuous heading and curvature.
+ */
+public class QuinticHermiteSpline {
+
+    public static final double kTangentScale = 1.2;
+
+    private final double ax, bx, cx, dx, ex, fx;
+    private final double ay, by, cy, dy, ey, fy;
+
+    public QuinticHermiteSpline(RigidTransform start, RigidTransform end){
+        this(start, end, 0, 0, 0, 0);
+    }
+
+    /**
+     * Same as {@link #QuinticHermiteSpline(RigidTransform, RigidTransform)}, with the second derivatives at the start
+     * (ddx0, ddy0) and end (ddx1, ddy1) given instead of 0
+     */
+    public QuinticHermiteSpline(RigidTransform start, RigidTransform end, double ddx0, double ddy0, double ddx1, double ddy1){
+        Translation p0 = start.getTranslation();
+        Translation p1 = end.getTranslation();
+        double scale = kTangentScale * Math.hypot(p1.x() - p0.x(), p1.y() - p0.y());
+        Rotation r0 = start.getRotation();
+        Rotation r1 = end.getRotation();
+        double dx0 = r0.cos() * scale, dy0 = r0.sin() * scale;
+        double dx1 = r1.cos() * scale, dy1 = r1.sin() * scale;
+
+        ax = -6 * p0.x() - 3 * dx0 - 0.5 * ddx0 + 0.5 * ddx1 - 3 * dx1 + 6 * p1.x();
+        bx = 15 * p0.x() + 8 * dx0 + 1.5 * ddx0 - ddx1 + 7 * dx1 - 15 * p1.x();
+        cx = -10 * p0.x() - 6 * dx0 - 1.5 * ddx0 + 0.5 * ddx1 - 4 * dx1 + 10 * p1.x();
+        dx = 0.5 * ddx0;
+        ex = dx0;
+        fx = p0.x();
+
+        ay = -6 * p0.y() - 3 * dy0 - 0.5 * ddy0 + 0.5 * ddy1 - 3 * dy1 + 6 * p1.y();
+        by = 15 * p0.y() + 8 * dy0 + 1.5 * ddy0 - ddy1 + 7 * dy1 - 15 * p1.y();
+        cy = -10 * p0.y() - 6 * dy0 - 1.5 * ddy0 + 0.5 * ddy1 - 4 * dy1 + 10 * p1.y();
+        dy = 0.5 * ddy0;
+        ey = dy0;
+        fy = p0.y();
+    }
+
+    public double getX(double t){
+        return ((((ax * t + bx) * t + cx) * t + dx) * t + ex) * t + fx;
+    }
+
+    public double getY(double t){
+        return ((((ay * t + by) * t + cy) * t + dy) * t + ey) * t + fy;
+    }
+
+    public double getDx(double t){
+        return (((5 * ax * t + 4 * bx) * t + 3 * cx) * t + 2 * dx) * t + ex;
+    }
+
+    public double getDy(double t){
+        return (((5 * ay * t + 4 * by) * t + 3 * cy) * t + 2 * dy) * t + ey;
+    }
+
+    public double getDdx(double t){
+        return ((20 * ax * t + 12 * bx) * t + 6 * cx) * t + 2 * dx;
+    }
+
+    public double getDdy(double t){
+        return ((20 * ay * t + 12 * by) * t + 6 * cy) * t + 2 * dy;
+    }
+
+    /**
+     * Length of the first derivative, how fast the spline moves per unit of t
+     */
+    public double getSpeed(double t){
+        return Math.hypot(getDx(t), getDy(t));
+    }
+
+    /**
+     * Signed curvature (1/radius, positive turning counterclockwise) at t
+     */
+    public double getCurvature(double t){
+        double dx = getDx(t);
+        double dy = getDy(t);
+        double squaredSpeed = dx * dx + dy * dy;
+        if (squaredSpeed == 0){
+            return 0;
+        }
+        return (dx * getDdy(t) - getDdx(t) * dy) / (squaredSpeed * Math.sqrt(squaredSpeed));
+    }
+
+    public RigidTransform getPose(double t){
+        return new RigidTransform(new Translation(getX(t), getY(t)), new Rotation(getDx(t), getDy(t), true));
+    }
+}
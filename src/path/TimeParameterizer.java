@@ -0,0 +1,122 @@
+package path;
+
+import trajectory.Trajectory;
+
+/**
+ * Works out the fastest way to drive a {@link Path} and samples it every dt into a {@link Trajectory}
+ * (pos is the distance along the path).
+ *
+ * Basically every path sample gets a velocity cap from the constraints:
+ *      maxVel
+ *      wheel speed: the outer wheel goes v * (1 + |curvature| * robotTrack / 2), which has to stay under maxWheelVel
+ *      centripetal acceleration: v^2 * |curvature| has to stay under maxCentripetalAcc
+ * Then a forward pass limits how fast each sample can be reached accelerating at maxAcc from the one before,
+ * and a backward pass how fast it can be left while still braking in time for the ones after.
+ * Both are a single loop over primitive arrays, so thousands of samples take well under a millisecond.
+ * Between samples acceleration is constant, which gives the time of every sample, and the result is resampled every dt.
+ *
+ * Not thread safe: the scratch arrays are reused between calls.
+ */
+public class TimeParameterizer {
+
+    private final double maxVel;
+    private final double maxAcc;
+    private final double maxCentripetalAcc;
+    private final double robotTrack;
+    private final double maxWheelVel;
+    private final double dt;
+
+    private double[] velocity = new double[0];
+    private double[] time = new double[0];
+
+    /**
+     * Use Double.POSITIVE_INFINITY for any limit that shouldn't apply
+     */
+    public TimeParameterizer(double maxVel, double maxAcc, double maxCentripetalAcc, double robotTrack, double maxWheelVel, double dt){
+        if (maxVel <= 0 || maxAcc <= 0 || maxCentripetalAcc <= 0 || maxWheelVel <= 0 || dt <= 0){
+            throw new IllegalArgumentException("Limits and dt must be positive");
+        }
+        this.maxVel = maxVel;
+        this.maxAcc = maxAcc;
+        this.maxCentripetalAcc = maxCentripetalAcc;
+        this.robotTrack = robotTrack;
+        this.maxWheelVel = maxWheelVel;
+        this.dt = dt;
+    }
+
+    public Trajectory parameterize(Path path, double startVel, double endVel){
+        return parameterizeInto(path, startVel, endVel, new Trajectory(0));
+    }
+
+    /**
+     * Same as {@link #parameterize(Path, double, double)}, refilling out instead of allocating.
+     * Sample i is the state at time i * dt, stamped with the end of that period ((i + 1) * dt) like every other
+     * {@link Trajectory}; the last sample is the end of the path, reached at or before the start of its period.
+     *
+     * @param out trajectory to clear and refill, can't be frozen
+     * @return out
+     */
+    public Trajectory parameterizeInto(Path path, double startVel, double endVel, Trajectory out){
+        int size = path.size();
+        if (velocity.length < size){
+            velocity = new double[size];
+            time = new double[size];
+        }
+
+        for (int i = 0; i < size; i++){
+            double curvature = Math.abs(path.getCurvature(i));
+            double limit = Math.min(maxVel, maxWheelVel / (1 + curvature * robotTrack / 2));
+            if (curvature > 0){
+                limit = Math.min(limit, Math.sqrt(maxCentripetalAcc / curvature));
+            }
+            velocity[i] = limit;
+        }
+        velocity[0] = Math.min(velocity[0], startVel);
+        velocity[size - 1] = Math.min(velocity[size - 1], endVel);
+
+        //forward pass: v^2 = v0^2 + 2 * a * ds
+        for (int i = 1; i < size; i++){
+            double ds = path.getDistance(i) - path.getDistance(i - 1);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1] * velocity[i - 1] + 2 * maxAcc * ds));
+        }
+        //backward pass, the same braking towards the end
+        for (int i = size - 2; i >= 0; i--){
+            double ds = path.getDistance(i + 1) - path.getDistance(i);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1] * velocity[i + 1] + 2 * maxAcc * ds));
+        }
+
+        //constant acceleration between samples covers ds in 2 * ds / (v0 + v1)
+        time[0] = 0;
+        for (int i = 1; i < size; i++){
+            double ds = path.getDistance(i) - path.getDistance(i - 1);
+            double sum = velocity[i - 1] + velocity[i];
+            time[i] = time[i - 1] + (sum > 0 ? 2 * ds / sum : 0);
+        }
+
+        out.clear();
+        double totalTime = time[size - 1];
+        int count = (int) Math.ceil(totalTime / dt) + 1;
+        int segment = 0;
+        for (int k = 0; k < count; k++){
+            double t = k * dt;
+            if (t >= totalTime){
+                out.addPoint(path.getDistance(size - 1), velocity[size - 1], 0, t + dt);
+                break;
+            }
+            while (segment + 2 < size && time[segment + 1] <= t){
+                segment++;
+            }
+            double ds = path.getDistance(segment + 1) - path.getDistance(segment);
+            double v0 = velocity[segment];
+            double v1 = velocity[segment + 1];
+            double acc = ds > 0 ? (v1 * v1 - v0 * v0) / (2 * ds) : 0;
+            double tau = t - time[segment];
+            out.addPoint(path.getDistance(segment) + v0 * tau + 0.5 * acc * tau * tau, v0 + acc * tau, acc, t + dt);
+        }
+        return out;
+    }
+
+    public double getDt(){
+        return dt;
+    }
+}
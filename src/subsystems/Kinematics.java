@@ -23,6 +23,15 @@ public class Kinematics {
         return currentPose.transform(RigidTransform.exp(deltaPos));
     }
 
+    /**
+     * Same as {@link #integrateForwardKinematics(RigidTransform, Twist)}, but writes the new pose into out
+     * instead of allocating. out must not be currentPose, and has to own its parts (see {@link RigidTransform#set(RigidTransform)}).
+     * @return out
+     */
+    public static RigidTransform integrateForwardKinematics(RigidTransform currentPose, Twist deltaPos, RigidTransform out){
+        return currentPose.transformInto(RigidTransform.expInto(deltaPos, out), out);
+    }
+
     public static RigidTransform integrateForwardKinematics(RigidTransform currentPose, double leftDelta, double rightDelta, double thetaDelta){
         Twist twist = forwardKinematics(leftDelta, rightDelta, thetaDelta);
         return integrateForwardKinematics(currentPose, twist);
@@ -39,6 +48,15 @@ public class Kinematics {
         return new Twist(dx, 0.0, rotationDelta);
     }
 
+    /**
+     * Same as {@link #forwardKinematics(double, double, double)}, but writes into out instead of allocating
+     * @return out
+     */
+    public static Twist forwardKinematics(double leftDelta, double rightDelta, double rotationDelta, Twist out){
+        double dx = (leftDelta + rightDelta)/2.0;
+        return out.set(dx, 0.0, rotationDelta);
+    }
+
     /**
      * Class representing a velocities (or delta in positions) in the left and right sides of a differential drive.
      */
@@ -69,4 +87,66 @@ public class Kinematics {
         double angularOffset =  robotTrack * deltaPos.dtheta() / 2.0;
         return new DriveVelocity(deltaPos.dx() - angularOffset, deltaPos.dx() + angularOffset);
     }
+
+    /**
+     * Same as {@link #inverseKinematics(Twist, double)}, but writes into out instead of allocating
+     * @return out
+     */
+    public static DriveVelocity inverseKinematics(Twist deltaPos, double robotTrack, DriveVelocity out){
+        if (Math.abs(deltaPos.dtheta()) < kEpsilon){
+            out.left = deltaPos.dx();
+            out.right = deltaPos.dx();
+            return out;
+        }
+        double angularOffset =  robotTrack * deltaPos.dtheta() / 2.0;
+        out.left = deltaPos.dx() - angularOffset;
+        out.right = deltaPos.dx() + angularOffset;
+        return out;
+    }
+
+    /**
+     * Batch version of {@link #inverseKinematics(Twist, double)} over whole profiles, for twists with no dy:
+     *      left[i]  = dx[i] - robotTrack * dtheta[i] / 2
+     *      right[i] = dx[i] + robotTrack * dtheta[i] / 2
+     *
+     * The loop is kept branch free over plain arrays so the JIT can vectorize it. That means there is no
+     * special case for dtheta under kEpsilon, so tiny rotations can differ from the scalar version by up to
+     * robotTrack * kEpsilon / 2.
+     *
+     * @param length number of entries to convert, every array has to be at least this long
+     */
+    public static void inverseKinematics(double[] dx, double[] dtheta, double robotTrack, double[] left, double[] right, int length){
+        checkLength(length, dx, dtheta, left, right);
+        double halfTrack = robotTrack / 2.0;
+        for (int i = 0; i < length; i++){
+            double angularOffset = halfTrack * dtheta[i];
+            left[i] = dx[i] - angularOffset;
+            right[i] = dx[i] + angularOffset;
+        }
+    }
+
+    /**
+     * Batch version of {@link #forwardKinematics(double, double)} with the track as a parameter:
+     *      dx[i]     = (left[i] + right[i]) / 2
+     *      dtheta[i] = (right[i] - left[i]) / robotTrack
+     *
+     * @param length number of entries to convert, every array has to be at least this long
+     */
+    public static void forwardKinematics(double[] left, double[] right, double robotTrack, double[] dx, double[] dtheta, int length){
+        checkLength(length, left, right, dx, dtheta);
+        for (int i = 0; i < length; i++){
+            dx[i] = (left[i] + right[i])/2.0;
+            dtheta[i] = (right[i] - left[i])/robotTrack;
+        }
+    }
+
+    private static void checkLength(int length, double[] a, double[] b, double[] c, double[] d){
+        if (length < 0){
+            throw new IllegalArgumentException("Negative length " + length);
+        }
+        int shortest = Math.min(Math.min(a.length, b.length), Math.min(c.length, d.length));
+        if (shortest < length){
+            throw new IllegalArgumentException("Array of length " + shortest + " is shorter than " + length);
+        }
+    }
 }
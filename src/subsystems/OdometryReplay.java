@@ -0,0 +1,151 @@
+package subsystems;
+
+import math.RigidTransform;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays logged encoder and gyro samples through {@link PoseEstimate} to rebuild the path the robot drove.
+ *
+ * Log format (all little-endian):
+ *      header:  int magic ("ODOM"), int version, long reserved
+ *      samples: double time, double leftDist, double rightDist, double angle (degrees)
+ *
+ * The log is memory mapped in large chunks and read with absolute gets, and the pose is integrated with the
+ * in place {@link PoseEstimate} mode, so nothing is allocated per sample and multi gigabyte archives stream
+ * through at memory bandwidth speed. Every sample is fed in with its logged time, so the estimate's timestamp
+ * (and a {@link PoseHistory} set with {@link #setHistory(PoseHistory)}) follow the log's clock.
+ */
+public class OdometryReplay {
+
+    public static final int kMagic = 0x4D4F444F; //"ODOM" read as little-endian
+    public static final int kVersion = 1;
+    public static final int kHeaderBytes = 16;
+    public static final int kSampleBytes = 32;
+
+    //a single mapping can't be bigger than 2GB, so big logs are mapped a piece at a time
+    private static final long kChunkBytes = (Integer.MAX_VALUE / kSampleBytes) * (long) kSampleBytes;
+
+    private final PoseEstimate poseEstimate = new PoseEstimate(true);
+    private long samples;
+    private long nanos;
+
+    /**
+     * Replays a whole log, starting from the origin
+     *
+     * @param log   path to the log
+     * @param poses where to write the pose after every sample as (x, y, heading in radians) triples,
+     *              or null if only the final pose ({@link #getPose()}) is needed
+     * @return number of samples replayed
+     */
+    public long replay(Path log, double[] poses) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            long count = readHeader(channel);
+            if (poses != null && count * 3 > poses.length){
+                throw new IllegalArgumentException("Pose array holds " + poses.length / 3 + " poses, log has " + count + " samples");
+            }
+
+            poseEstimate.reset(new RigidTransform());
+            poseEstimate.init(0);
+            RigidTransform pose = poseEstimate.getPose();
+
+            long position = kHeaderBytes;
+            long end = kHeaderBytes + count * kSampleBytes;
+            int out = 0;
+            while (position < end){
+                long length = Math.min(kChunkBytes, end - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                for (int offset = 0; offset < length; offset += kSampleBytes){
+                    poseEstimate.update(buffer.getDouble(offset), buffer.getDouble(offset + 8), buffer.getDouble(offset + 16),
+                            buffer.getDouble(offset + 24));
+                    if (poses != null){
+                        poses[out++] = pose.getTranslation().x();
+                        poses[out++] = pose.getTranslation().y();
+                        poses[out++] = pose.getRotation().radians();
+                    }
+                }
+                position += length;
+            }
+            samples = count;
+        }
+        nanos = System.nanoTime() - start;
+        return samples;
+    }
+
+    private static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(kHeaderBytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()){
+            if (channel.read(header) < 0) break;
+        }
+        if (header.hasRemaining() || header.getInt(0) != kMagic){
+            throw new IOException("Not an odometry log");
+        }
+        if (header.getInt(4) != kVersion){
+            throw new IOException("Unsupported odometry log version " + header.getInt(4));
+        }
+        return (channel.size() - kHeaderBytes) / kSampleBytes;
+    }
+
+    /**
+     * Records the replayed poses at their logged times (null to stop recording)
+     */
+    public void setHistory(PoseHistory history){
+        poseEstimate.setHistory(history);
+    }
+
+    /**
+     * Time of the last replayed sample
+     */
+    public double getTimestamp(){
+        return poseEstimate.getTimestamp();
+    }
+
+    /**
+     * Final pose of the last replay. Overwritten by the next replay.
+     */
+    public RigidTransform getPose(){
+        return poseEstimate.getPose();
+    }
+
+    public long getSamples(){
+        return samples;
+    }
+
+    public double getSamplesPerSecond(){
+        return nanos == 0 ? 0 : samples / (nanos / 1e9);
+    }
+
+    /**
+     * Writes a log in the format {@link #replay(Path, double[])} reads
+     */
+    public static void write(Path log, double[] time, double[] leftDist, double[] rightDist, double[] angle) throws IOException {
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(kMagic).putInt(kVersion).putLong(0);
+            for (int i = 0; i < time.length; i++){
+                if (buffer.remaining() < kSampleBytes){
+                    flush(channel, buffer);
+                }
+                buffer.putDouble(time[i]).putDouble(leftDist[i]).putDouble(rightDist[i]).putDouble(angle[i]);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,304 @@
+package subsystems;
+
+import trajectory.Trajectory;
+import trajectory.TrajectoryPair;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a curve on a fixed period: every tick it reads the wheel velocities for the current time off the lead and
+ * follow paths with {@link Trajectory.Cursor}s, sends them to the {@link Drive}, and feeds the drive's sensors
+ * into {@link PoseEstimate#update(double, double, double, double)}.
+ * The cursors interpolate, so the follower's period doesn't have to match the dt the paths were generated with.
+ *
+ * Ticks are scheduled on absolute deadlines (start + tick * dt), so time spent in a tick or oversleeping never adds up.
+ * The thread parks until shortly before each deadline and spins the rest of the way, since parking alone
+ * can wake up a scheduler quantum late.
+ * If a tick finishes after the next deadline, that deadline counts as missed. If the loop falls more than a whole
+ * period behind, it skips ahead to the setpoint for the current time instead of replaying old ones.
+ *
+ * Run it from one thread; {@link #stop()} may be called from any thread.
+ */
+public class PathFollower {
+
+    private static final long kDefaultSpinNanos = 200_000L;
+
+    /**
+     * What the follower drives
+     */
+    public interface Drive {
+        /**
+         * @param left  left wheel velocity, distance per second
+         * @param right right wheel velocity, distance per second
+         */
+        void setVelocity(double left, double right);
+
+        double getLeftDistance();
+
+        double getRightDistance();
+
+        /**
+         * @return gyro angle in degrees, counterclockwise positive
+         */
+        double getAngle();
+    }
+
+    /**
+     * Ideal drive that moves exactly as commanded for one period per command
+     */
+    public static class SimulatedDrive implements Drive {
+        private final double dt;
+        private final double robotTrack;
+        private double left, right, angle;
+
+        public SimulatedDrive(double dt, double robotTrack){
+            this.dt = dt;
+            this.robotTrack = robotTrack;
+        }
+
+        @Override
+        public void setVelocity(double left, double right){
+            double leftDelta = left * dt;
+            double rightDelta = right * dt;
+            this.left += leftDelta;
+            this.right += rightDelta;
+            angle += Math.toDegrees((rightDelta - leftDelta) / robotTrack);
+        }
+
+        @Override
+        public double getLeftDistance(){
+            return left;
+        }
+
+        @Override
+        public double getRightDistance(){
+            return right;
+        }
+
+        @Override
+        public double getAngle(){
+            return angle;
+        }
+    }
+
+    /**
+     * Loop timing of one {@link #follow(TrajectoryPair, boolean)}
+     */
+    public static class Stats {
+        //bucket i counts latencies below 2^i microseconds, the last one everything above
+        public static final int kBuckets = 24;
+
+        private long ticks, missed, skipped;
+        private long totalLatency, maxLatency;
+        private long totalCompute, maxCompute;
+        private final long[] latencyHistogram = new long[kBuckets];
+
+        void clear(){
+            ticks = missed = skipped = 0;
+            totalLatency = maxLatency = totalCompute = maxCompute = 0;
+            Arrays.fill(latencyHistogram, 0);
+        }
+
+        void record(long latency, long compute){
+            ticks++;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            totalCompute += compute;
+            maxCompute = Math.max(maxCompute, compute);
+            long micros = latency / 1000;
+            int bucket = 64 - Long.numberOfLeadingZeros(micros);
+            latencyHistogram[Math.min(bucket, kBuckets - 1)]++;
+        }
+
+        public long getTicks(){
+            return ticks;
+        }
+
+        /**
+         * Ticks that finished after the next tick's deadline
+         */
+        public long getMissedDeadlines(){
+            return missed;
+        }
+
+        /**
+         * Setpoints that were never sent because the loop fell more than a period behind
+         */
+        public long getSkippedTicks(){
+            return skipped;
+        }
+
+        /**
+         * Mean time between a deadline and the tick actually starting, in nanoseconds
+         */
+        public double getMeanLatency(){
+            return ticks == 0 ? 0 : (double) totalLatency / ticks;
+        }
+
+        public long getMaxLatency(){
+            return maxLatency;
+        }
+
+        /**
+         * Mean time spent inside a tick, in nanoseconds
+         */
+        public double getMeanCompute(){
+            return ticks == 0 ? 0 : (double) totalCompute / ticks;
+        }
+
+        public long getMaxCompute(){
+            return maxCompute;
+        }
+
+        /**
+         * Start latency histogram: bucket 0 counts latencies under 1us, bucket i latencies in [2^(i-1), 2^i) us
+         */
+        public long[] getLatencyHistogram(){
+            return latencyHistogram.clone();
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder builder = new StringBuilder();
+            builder.append("ticks ").append(ticks).append(", missed ").append(missed).append(", skipped ").append(skipped)
+                    .append(String.format(", latency mean %.1fus max %.1fus, compute mean %.1fus max %.1fus",
+                            getMeanLatency() / 1e3, maxLatency / 1e3, getMeanCompute() / 1e3, maxCompute / 1e3));
+            for (int i = 0; i < kBuckets; i++){
+                if (latencyHistogram[i] != 0){
+                    builder.append("\n  < ").append(1L << i).append("us: ").append(latencyHistogram[i]);
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    private final double dt;
+    private final long periodNanos;
+    private final double robotTrack;
+    private final Drive drive;
+    private final PoseEstimate poseEstimate;
+    private long spinNanos = kDefaultSpinNanos;
+    private TelemetryRecorder telemetry;
+    private volatile boolean stopped;
+
+    private final Stats stats = new Stats();
+    private final Kinematics.DriveVelocity command = new Kinematics.DriveVelocity(0, 0);
+
+    /**
+     * @param dt period in seconds, trajectories generated with a different dt are interpolated
+     */
+    public PathFollower(double dt, double robotTrack, Drive drive, PoseEstimate poseEstimate){
+        if (dt <= 0){
+            throw new IllegalArgumentException("dt must be positive");
+        }
+        this.dt = dt;
+        this.periodNanos = Math.round(dt * 1e9);
+        this.robotTrack = robotTrack;
+        this.drive = drive;
+        this.poseEstimate = poseEstimate;
+    }
+
+    /**
+     * How long before each deadline to stop parking and start spinning. More spinning means less jitter
+     * but burns more CPU; 0 never spins.
+     */
+    public void setSpinNanos(long spinNanos){
+        this.spinNanos = Math.max(0, spinNanos);
+    }
+
+    /**
+     * Records every setpoint and drive command to the given recorder (null to stop recording)
+     */
+    public void setTelemetry(TelemetryRecorder telemetry){
+        this.telemetry = telemetry;
+    }
+
+    public Stats getStats(){
+        return stats;
+    }
+
+    /**
+     * Makes a running {@link #follow(TrajectoryPair, boolean)} stop the drive and return at its next tick
+     */
+    public void stop(){
+        stopped = true;
+    }
+
+    /**
+     * Drives the curve in real time, returning once the last setpoint has been sent (or {@link #stop()} was called).
+     * Timestamps passed to the pose estimate are seconds since the start of the curve, and the drive's distances
+     * are taken relative to where they were at the start.
+     *
+     * @param right whether the curve turns right (the lead path is on the left), ignored for straight pairs
+     * @return the loop timing, which stays valid until the next call
+     */
+    public Stats follow(TrajectoryPair curve, boolean right){
+        Trajectory leadPath = curve.getLeadPath();
+        Trajectory followPath = curve.getFollowPath();
+        stats.clear();
+        stopped = false;
+        poseEstimate.init(0);
+        if (leadPath.size() == 0){
+            return stats;
+        }
+        Trajectory.Cursor leadCursor = leadPath.cursor();
+        //an empty follow path never moves, see Trajectory#getVelClamped
+        Trajectory.Cursor followCursor = followPath.size() == 0 ? null : followPath.cursor();
+        //point 0 (the state at the start) is stamped one trajectory period in, see Trajectory
+        double firstStamp = leadPath.getTime(0);
+        int ticks = (int) ((leadPath.getTime(leadPath.size() - 1) - firstStamp) / dt + 1e-9) + 1;
+        double leftStart = drive.getLeftDistance();
+        double rightStart = drive.getRightDistance();
+
+        long start = System.nanoTime();
+        int tick = 0;
+        while (tick < ticks && !stopped){
+            long deadline = start + tick * periodNanos;
+            long now = waitUntil(deadline);
+
+            double timestamp = tick * dt;
+            leadCursor.moveTo(firstStamp + timestamp);
+            double followVel = followCursor == null ? 0 : followCursor.moveTo(firstStamp + timestamp).getVel();
+            command.left = right ? leadCursor.getVel() : followVel;
+            command.right = right ? followVel : leadCursor.getVel();
+            drive.setVelocity(command.left, command.right);
+            poseEstimate.update(timestamp, drive.getLeftDistance() - leftStart, drive.getRightDistance() - rightStart,
+                    drive.getAngle());
+            if (telemetry != null){
+                telemetry.recordSetpoint(timestamp, leadCursor.getPos(), leadCursor.getVel(), leadCursor.getAcc());
+                telemetry.recordDriveVelocity(timestamp, command);
+            }
+
+            long end = System.nanoTime();
+            stats.record(now - deadline, end - now);
+            int next = tick + 1;
+            if (end - start > next * periodNanos){
+                stats.missed++;
+                //more than a whole period behind, jump to the setpoint for the current time
+                int current = (int) Math.min((end - start) / periodNanos, ticks);
+                if (current > next){
+                    stats.skipped += current - next;
+                    next = current;
+                }
+            }
+            tick = next;
+        }
+        drive.setVelocity(0, 0);
+        return stats;
+    }
+
+    /**
+     * Parks until spinNanos before the deadline, then spins
+     * @return the time the deadline was reached
+     */
+    private long waitUntil(long deadline){
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinNanos){
+            LockSupport.parkNanos(remaining - spinNanos);
+        }
+        long now;
+        while ((now = System.nanoTime()) < deadline);
+        return now;
+    }
+}
@@ -3,16 +3,47 @@ package subsystems;
 import math.RigidTransform;
 import math.Rotation;
 import math.Twist;
+import metrics.Histogram;
+import metrics.Metrics;
 
 public class PoseEstimate {
 
+    private static final Histogram kUpdateTime = Metrics.histogram("PoseEstimate.update", 16);
+
+    private final boolean inPlace;
+
     private Twist velocity;
     private RigidTransform pose;
     private RigidTransform prevPose;
     private double prevLeftDist = 0;
     private double prevRightDist = 0;
+    private double timestamp = 0;
+    private PosePublisher publisher;
+    private PoseHistory history;
+    private TelemetryRecorder telemetry;
+
+    //scratch state for the in place mode
+    private Rotation deltaHeading;
+    private Rotation heading;
 
     public PoseEstimate(){
+        this(false);
+    }
+
+    /**
+     * @param inPlace if true, {@link #update(double, double, double)} reuses preallocated objects and allocates nothing.
+     *                The pose and velocity returned by the getters are then overwritten by the next update,
+     *                so copy them if you need to keep them around.
+     */
+    public PoseEstimate(boolean inPlace){
+        this.inPlace = inPlace;
+        if (inPlace){
+            velocity = new Twist();
+            pose = new RigidTransform();
+            prevPose = new RigidTransform();
+            deltaHeading = new Rotation();
+            heading = new Rotation();
+        }
         reset(new RigidTransform());
     }
 
@@ -24,19 +55,115 @@ public class PoseEstimate {
         return velocity;
     }
 
+    public boolean isInPlace() {
+        return inPlace;
+    }
+
+    /**
+     * Time of the latest {@link #init(double)} or timestamped {@link #update(double, double, double, double)}
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Publishes every pose to other threads through the given publisher (null to stop publishing).
+     * Readers should only ever look at the publisher, never at {@link #getPose()}, which isn't thread safe.
+     */
+    public void setPublisher(PosePublisher publisher) {
+        this.publisher = publisher;
+        publish();
+    }
+
+    /**
+     * Records the pose of every timestamped {@link #update(double, double, double, double)} in the given history
+     * (null to stop recording). Updates without a timestamp aren't recorded, since there is no time to look them up by.
+     * The history is cleared on {@link #reset(RigidTransform)}, since old poses are in a different frame after that.
+     */
+    public void setHistory(PoseHistory history) {
+        this.history = history;
+    }
+
+    public PoseHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Records every updated pose to the given recorder (null to stop recording).
+     * Updates have to come from a single thread, since the recorder only supports one producer.
+     */
+    public void setTelemetry(TelemetryRecorder telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    private void publish() {
+        if (publisher != null){
+            publisher.publish(timestamp, pose, velocity);
+        }
+    }
+
     public void reset(RigidTransform startingPose){
+        if (history != null){
+            history.clear();
+        }
+        if (inPlace){
+            velocity.set(0, 0, 0);
+            pose.set(startingPose);
+            prevPose.set(new RigidTransform());
+            publish();
+            return;
+        }
         velocity = new Twist();
         pose = startingPose;
         prevPose = new RigidTransform();
+        publish();
     }
 
 
     public void init(double timestamp) {
+        this.timestamp = timestamp;
         prevLeftDist = 0;
         prevRightDist = 0;
     }
 
+    /**
+     * Same as {@link #update(double, double, double, double)}, keeping the timestamp of the previous update.
+     * The pose isn't added to the {@link #setHistory(PoseHistory) history}.
+     */
     public void update(double leftDist, double rightDist, double angle) {
+        update(timestamp, leftDist, rightDist, angle, false);
+    }
+
+    /**
+     * @param timestamp time the sensors were read at
+     * @param leftDist  total distance the left wheels have driven since {@link #init(double)}
+     * @param rightDist total distance the right wheels have driven since {@link #init(double)}
+     * @param angle     gyro angle in degrees
+     */
+    public void update(double timestamp, double leftDist, double rightDist, double angle) {
+        update(timestamp, leftDist, rightDist, angle, true);
+    }
+
+    private void update(double timestamp, double leftDist, double rightDist, double angle, boolean timed) {
+        long start = kUpdateTime.start();
+        this.timestamp = timestamp;
+        if (inPlace){
+            updateInPlace(leftDist, rightDist, angle);
+        } else {
+            updateAllocating(leftDist, rightDist, angle);
+        }
+        //a timestamp older than the history's latest pose is dropped and counted by the history
+        if (timed && history != null){
+            history.add(timestamp, pose);
+        }
+        if (telemetry != null){
+            telemetry.recordPose(timestamp, pose);
+        }
+        publish();
+        kUpdateTime.stop(start);
+    }
+
+    private void updateAllocating(double leftDist, double rightDist, double angle) {
         double deltaLeftDist = leftDist - prevLeftDist;
         double deltaRightDist = rightDist - prevRightDist;
         Rotation deltaHeading = prevPose.getRotation().inverse().rotate(Rotation.fromDegrees(angle));
@@ -50,5 +177,18 @@ public class PoseEstimate {
         prevRightDist = rightDist;
         prevPose = pose;
     }
-}
 
+    /**
+     * Same math as {@link #update(double, double, double)}, written into the preallocated scratch state
+     */
+    private void updateInPlace(double leftDist, double rightDist, double angle) {
+        double deltaLeftDist = leftDist - prevLeftDist;
+        double deltaRightDist = rightDist - prevRightDist;
+        prevPose.getRotation().inverseInto(deltaHeading).rotateInto(heading.setDegrees(angle), deltaHeading);
+        Kinematics.forwardKinematics(deltaLeftDist, deltaRightDist, deltaHeading.radians(), velocity);
+        Kinematics.integrateForwardKinematics(prevPose, velocity, pose);
+        prevLeftDist = leftDist;
+        prevRightDist = rightDist;
+        prevPose.set(pose);
+    }
+}
@@ -0,0 +1,167 @@
+package subsystems;
+
+import math.RigidTransform;
+import math.Twist;
+
+/**
+ * Fixed size history of timestamped poses, for looking up where the robot was when a late measurement
+ * (like a camera frame) was taken.
+ *
+ * Poses are stored as (time, x, y, cos, sin) in primitive ring buffers, so adding one never allocates.
+ * Lookups binary search the timestamps and interpolate between the two poses around the requested time
+ * along the arc joining them ({@link RigidTransform#interpolateInto}).
+ *
+ * Not thread safe: use it from the thread that updates the pose (lookups use shared scratch objects).
+ */
+public class PoseHistory {
+
+    private final double[] time;
+    private final double[] x;
+    private final double[] y;
+    private final double[] cos;
+    private final double[] sin;
+    private int start;
+    private int size;
+    private long dropped;
+
+    private final RigidTransform before = new RigidTransform();
+    private final RigidTransform after = new RigidTransform();
+    private final RigidTransform scratch = new RigidTransform();
+    private final Twist twist = new Twist();
+
+    /**
+     * @param capacity how many poses to keep, for example 1000 keeps 5 seconds at 200Hz
+     */
+    public PoseHistory(int capacity){
+        if (capacity < 1){
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        time = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        cos = new double[capacity];
+        sin = new double[capacity];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int capacity(){
+        return time.length;
+    }
+
+    public void clear(){
+        start = 0;
+        size = 0;
+        dropped = 0;
+    }
+
+    public double getOldestTime(){
+        checkNotEmpty();
+        return time[start];
+    }
+
+    public double getLatestTime(){
+        checkNotEmpty();
+        return time[index(size - 1)];
+    }
+
+    private void checkNotEmpty(){
+        if (size == 0){
+            throw new IllegalStateException("Pose history is empty");
+        }
+    }
+
+    /**
+     * Poses that were left out because they were older than the latest one
+     */
+    public long getDropped(){
+        return dropped;
+    }
+
+    /**
+     * Adds a pose, dropping the oldest one if the history is full.
+     * A pose with the same timestamp as the latest one replaces it, and one older than the latest is
+     * left out and counted in {@link #getDropped()}, since the history has to stay sorted.
+     *
+     * @return false if the pose was left out
+     */
+    public boolean add(double timestamp, RigidTransform pose){
+        if (size > 0){
+            double latest = getLatestTime();
+            if (timestamp < latest){
+                dropped++;
+                return false;
+            }
+            if (timestamp == latest){
+                size--;
+            }
+        }
+        int slot;
+        if (size == time.length){
+            slot = start;
+            start = index(1);
+        } else {
+            slot = index(size);
+            size++;
+        }
+        time[slot] = timestamp;
+        x[slot] = pose.getTranslation().x();
+        y[slot] = pose.getTranslation().y();
+        cos[slot] = pose.getRotation().cos();
+        sin[slot] = pose.getRotation().sin();
+        return true;
+    }
+
+    /**
+     * Writes the pose at the given time into out, without allocating.
+     * Times outside the history are clamped to the oldest/latest pose.
+     *
+     * @param out transform to write into, has to own its parts (see {@link RigidTransform#set(RigidTransform)})
+     * @return out
+     * @throws IllegalStateException if the history is empty
+     */
+    public RigidTransform getPoseAt(double timestamp, RigidTransform out){
+        checkNotEmpty();
+        //find the first pose after the timestamp
+        int low = 0;
+        int high = size;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (time[index(middle)] <= timestamp){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0){
+            return load(0, out);
+        }
+        if (low == size){
+            return load(size - 1, out);
+        }
+        int beforeSlot = index(low - 1);
+        int afterSlot = index(low);
+        double fraction = (timestamp - time[beforeSlot]) / (time[afterSlot] - time[beforeSlot]);
+        load(low - 1, before);
+        load(low, after);
+        return before.interpolateInto(after, fraction, scratch, twist, out);
+    }
+
+    public RigidTransform getPoseAt(double timestamp){
+        return getPoseAt(timestamp, new RigidTransform());
+    }
+
+    private RigidTransform load(int logicalIndex, RigidTransform out){
+        int slot = index(logicalIndex);
+        out.getTranslation().set(x[slot], y[slot]);
+        out.getRotation().set(cos[slot], sin[slot], false);
+        return out;
+    }
+
+    private int index(int logicalIndex){
+        int slot = start + logicalIndex;
+        return slot >= time.length ? slot - time.length : slot;
+    }
+}
@@ -0,0 +1,114 @@
+package subsystems;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+import math.Twist;
+
+/**
+ * Hands the latest (timestamp, pose, velocity) from the odometry thread to any number of reader threads.
+ *
+ * This is a sequence lock: the writer bumps the sequence number to odd, writes the fields, then bumps it back to even.
+ * Readers read the sequence, the fields, then the sequence again, and retry if it changed or was odd.
+ * The writer never blocks or allocates, and readers only spin while a publish is in the middle of being written.
+ * Every field is volatile so the reads and writes can't be reordered around the sequence number.
+ *
+ * Only one thread may call {@link #publish(double, RigidTransform, Twist)}.
+ */
+public class PosePublisher {
+
+    private volatile long sequence;
+    private volatile double timestamp;
+    private volatile double x, y, cos = 1.0, sin;
+    private volatile double dx, dy, dtheta;
+
+    /**
+     * Consistent copy of one published state
+     */
+    public static class Snapshot {
+        private long sequence;
+        private double timestamp;
+        private double x, y, cos = 1.0, sin;
+        private double dx, dy, dtheta;
+
+        /**
+         * Increases by one for every publish, so readers can tell whether anything changed since their last read
+         */
+        public long getSequence(){
+            return sequence;
+        }
+
+        public double getTimestamp(){
+            return timestamp;
+        }
+
+        public double x(){
+            return x;
+        }
+
+        public double y(){
+            return y;
+        }
+
+        public double cos(){
+            return cos;
+        }
+
+        public double sin(){
+            return sin;
+        }
+
+        public RigidTransform getPose(){
+            return new RigidTransform(new Translation(x, y), new Rotation(cos, sin));
+        }
+
+        public Twist getVelocity(){
+            return new Twist(dx, dy, dtheta);
+        }
+    }
+
+    public void publish(double timestamp, RigidTransform pose, Twist velocity){
+        long start = sequence;
+        sequence = start + 1;
+        this.timestamp = timestamp;
+        x = pose.getTranslation().x();
+        y = pose.getTranslation().y();
+        cos = pose.getRotation().cos();
+        sin = pose.getRotation().sin();
+        dx = velocity.dx();
+        dy = velocity.dy();
+        dtheta = velocity.dtheta();
+        sequence = start + 2;
+    }
+
+    /**
+     * Copies the latest published state into out without allocating
+     * @return out
+     */
+    public Snapshot read(Snapshot out){
+        while (true){
+            long start = sequence;
+            if ((start & 1) != 0){
+                //publish in progress, let the writer finish if it's sharing our core
+                Thread.yield();
+                continue;
+            }
+            out.timestamp = timestamp;
+            out.x = x;
+            out.y = y;
+            out.cos = cos;
+            out.sin = sin;
+            out.dx = dx;
+            out.dy = dy;
+            out.dtheta = dtheta;
+            if (sequence == start){
+                out.sequence = start >> 1;
+                return out;
+            }
+        }
+    }
+
+    public Snapshot read(){
+        return read(new Snapshot());
+    }
+}
@@ -0,0 +1,529 @@
+package subsystems;
+
+import trajectory.Trajectory;
+import trajectory.TrajectoryPair;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the left/right setpoints of a curve into motor controllers that run motion profiles from a small
+ * buffer of their own, instead of materializing every point and pushing them one at a time.
+ *
+ * Basically a producer thread reads the lead/follow paths by index, only as far ahead as it has room for, and packs
+ * the points into fixed size {@link Batch batches}. The batches go through a bounded ring to the streaming thread,
+ * which hands each one to the {@link Controller} in as few calls as its free space allows. When the ring is full
+ * the producer waits, and when the controller is full the streaming thread waits, so memory is the batch pool no
+ * matter how long the route is (as long as the paths themselves are lazy, like a
+ * {@link trajectory.TrapezoidalProfile} and its {@link trajectory.TrajectoryView scaled} follow path).
+ *
+ * The producer thread is started by the first stream and reused by every stream after it; {@link #close()} ends it.
+ *
+ * Run {@link #stream(TrajectoryPair, boolean)} from one thread; {@link #stop()} may be called from any thread.
+ */
+public class SetpointStreamer implements AutoCloseable {
+
+    public static final int kDefaultBatchSize = 32;
+    public static final int kDefaultQueuedBatches = 4;
+
+    private static final long kPollNanos = 100_000L;
+
+    /**
+     * A chunk of consecutive setpoints, reused once the controller has taken it
+     */
+    public static class Batch {
+        public final double[] leftPos, leftVel, rightPos, rightVel, time;
+        private int size;
+        private boolean last;
+
+        Batch(int capacity){
+            leftPos = new double[capacity];
+            leftVel = new double[capacity];
+            rightPos = new double[capacity];
+            rightVel = new double[capacity];
+            time = new double[capacity];
+        }
+
+        public int size(){
+            return size;
+        }
+
+        /**
+         * Whether this batch ends the route
+         */
+        public boolean isLast(){
+            return last;
+        }
+    }
+
+    /**
+     * Where the setpoints go, for example a pair of motor controllers
+     */
+    public interface Controller {
+        /**
+         * @return how many more points fit in the controller's buffer right now
+         */
+        int getFreeSpace();
+
+        /**
+         * Takes points [offset, offset + count) of the batch. count is never more than {@link #getFreeSpace()},
+         * and the batch is reused afterwards, so copy what you need.
+         */
+        void push(Batch batch, int offset, int count);
+
+        /**
+         * Called after the last point, so the controller can tell finishing apart from running dry
+         */
+        void end();
+
+        /**
+         * @return how many times the controller needed a point and its buffer was empty
+         */
+        long getUnderruns();
+    }
+
+    /**
+     * Stand-in for a motor controller: a buffer of the given size that a thread of its own executes one point
+     * per period from, starting once the buffer has filled up (or the route ended before that).
+     * Every period it finds the buffer empty before the end counts as an underrun.
+     * Each one runs a single route.
+     */
+    public static class SimulatedController implements Controller {
+        private static final int kStride = 4;
+
+        private final double[] points;
+        private final int capacity;
+        private final long periodNanos;
+        //head is only written by the execution thread, tail only by the streaming thread
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private volatile boolean ended;
+        private volatile long underruns;
+        private final Thread thread;
+        private boolean started;
+
+        private double leftPos, leftVel, rightPos, rightVel;
+
+        /**
+         * @param capacity    points the buffer holds
+         * @param periodNanos time per point, 0 to execute as fast as points come in
+         */
+        public SimulatedController(int capacity, long periodNanos){
+            if (capacity <= 0 || periodNanos < 0){
+                throw new IllegalArgumentException("Capacity must be positive and the period can't be negative");
+            }
+            this.capacity = capacity;
+            this.periodNanos = periodNanos;
+            points = new double[capacity * kStride];
+            thread = new Thread(this::execute, "simulated-controller");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public int getFreeSpace(){
+            return capacity - (int) (tail.get() - head.get());
+        }
+
+        @Override
+        public void push(Batch batch, int offset, int count){
+            long position = tail.get();
+            for (int i = offset; i < offset + count; i++){
+                int index = (int) (position++ % capacity) * kStride;
+                points[index] = batch.leftPos[i];
+                points[index + 1] = batch.leftVel[i];
+                points[index + 2] = batch.rightPos[i];
+                points[index + 3] = batch.rightVel[i];
+            }
+            tail.lazySet(position);
+            if (!started && position - head.get() >= capacity){
+                start();
+            }
+        }
+
+        @Override
+        public void end(){
+            ended = true;
+            if (!started){
+                start();
+            }
+        }
+
+        private void start(){
+            started = true;
+            thread.start();
+        }
+
+        private void execute(){
+            long next = System.nanoTime();
+            while (true){
+                long position = head.get();
+                if (position < tail.get()){
+                    int index = (int) (position % capacity) * kStride;
+                    leftPos = points[index];
+                    leftVel = points[index + 1];
+                    rightPos = points[index + 2];
+                    rightVel = points[index + 3];
+                    head.lazySet(position + 1);
+                } else if (ended){
+                    //tail is written before ended, so if it still hasn't moved the buffer really is empty
+                    if (position == tail.get()){
+                        return;
+                    }
+                    continue;
+                } else if (periodNanos > 0){
+                    underruns++;
+                } else {
+                    Thread.yield();
+                    continue;
+                }
+                if (periodNanos > 0){
+                    next += periodNanos;
+                    long sleep;
+                    while ((sleep = next - System.nanoTime()) > 0){
+                        LockSupport.parkNanos(sleep);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Waits for every point to be executed
+         */
+        public void awaitDone() throws InterruptedException {
+            thread.join();
+        }
+
+        /**
+         * @return points executed so far
+         */
+        public long getExecuted(){
+            return head.get();
+        }
+
+        @Override
+        public long getUnderruns(){
+            return underruns;
+        }
+
+        /**
+         * Last executed setpoint, only up to date after {@link #awaitDone()}
+         */
+        public double getLeftPos(){
+            return leftPos;
+        }
+
+        public double getLeftVel(){
+            return leftVel;
+        }
+
+        public double getRightPos(){
+            return rightPos;
+        }
+
+        public double getRightVel(){
+            return rightVel;
+        }
+    }
+
+    /**
+     * Counts from one {@link #stream(TrajectoryPair, boolean)}
+     */
+    public static class Stats {
+        private long points, batches, pushes;
+        private long producerWaits, controllerWaits, underruns;
+        private long nanos;
+
+        void clear(){
+            points = batches = pushes = producerWaits = controllerWaits = underruns = nanos = 0;
+        }
+
+        public long getPoints(){
+            return points;
+        }
+
+        public long getBatches(){
+            return batches;
+        }
+
+        /**
+         * Calls to {@link Controller#push(Batch, int, int)}
+         */
+        public long getPushes(){
+            return pushes;
+        }
+
+        /**
+         * Times the streaming thread found no batch ready and had to wait for the producer
+         */
+        public long getProducerWaits(){
+            return producerWaits;
+        }
+
+        /**
+         * Times the streaming thread found the controller's buffer full
+         */
+        public long getControllerWaits(){
+            return controllerWaits;
+        }
+
+        /**
+         * Underruns the controller reported while this route streamed
+         */
+        public long getUnderruns(){
+            return underruns;
+        }
+
+        /**
+         * Points handed to the controller per second
+         */
+        public double getThroughput(){
+            return nanos == 0 ? 0 : points * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d points in %d batches, %d pushes, %.0f points/s, producer waits %d, "
+                    + "controller waits %d, underruns %d", points, batches, pushes, getThroughput(), producerWaits,
+                    controllerWaits, underruns);
+        }
+    }
+
+    private final Controller controller;
+    private final int batchSize;
+    //ring of batches between the producer and the streaming thread, head is only written by the streaming thread
+    //and tail only by the producer
+    private final Batch[] batches;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    //started by the first stream and reused by every one after it, until close
+    private final Thread producer;
+    private volatile Thread streamer;
+    private volatile boolean producerParked, streamerParked;
+    private final Stats stats = new Stats();
+    private volatile boolean stopped, closed;
+    private volatile RuntimeException producerError;
+
+    //the current route, written by stream before it bumps requested and read by the producer after it sees the bump
+    private Trajectory leadPath, leftPath, rightPath;
+    //number of routes handed to / finished by the producer
+    private volatile long requested, finished;
+
+    /**
+     * @param batchSize     points per batch
+     * @param queuedBatches how many filled batches the producer may get ahead by
+     */
+    public SetpointStreamer(Controller controller, int batchSize, int queuedBatches){
+        if (batchSize <= 0 || queuedBatches <= 0){
+            throw new IllegalArgumentException("Batch size and queue length must be positive");
+        }
+        this.controller = controller;
+        this.batchSize = batchSize;
+        //one more than can be queued, for the batch being streamed
+        batches = new Batch[queuedBatches + 1];
+        for (int i = 0; i < batches.length; i++){
+            batches[i] = new Batch(batchSize);
+        }
+        producer = new Thread(this::produceLoop, "setpoint-producer");
+        producer.setDaemon(true);
+    }
+
+    public SetpointStreamer(Controller controller){
+        this(controller, kDefaultBatchSize, kDefaultQueuedBatches);
+    }
+
+    public Stats getStats(){
+        return stats;
+    }
+
+    /**
+     * Makes a running {@link #stream(TrajectoryPair, boolean)} return without sending the rest of the route
+     */
+    public void stop(){
+        stopped = true;
+    }
+
+    /**
+     * Streams the whole curve into the controller, returning once the last point has been pushed
+     * (or {@link #stop()} was called). {@link Controller#end()} is called either way.
+     * Every point of the lead path is sent; a shorter follow path holds its last point (or stays at 0 if it's empty).
+     *
+     * @param right whether the curve turns right (the lead path is on the left), ignored for straight pairs
+     * @return the counts, which stay valid until the next call
+     */
+    public Stats stream(TrajectoryPair curve, boolean right){
+        if (closed){
+            throw new IllegalStateException("SetpointStreamer is closed");
+        }
+        leadPath = curve.getLeadPath();
+        leftPath = right ? leadPath : curve.getFollowPath();
+        rightPath = right ? curve.getFollowPath() : leadPath;
+
+        stats.clear();
+        stopped = false;
+        producerError = null;
+        head.set(0);
+        tail.set(0);
+        long underrunsBefore = controller.getUnderruns();
+        long start = System.nanoTime();
+        streamer = Thread.currentThread();
+        if (producer.getState() == Thread.State.NEW){
+            producer.start();
+        } else if (!producer.isAlive()){
+            throw new IllegalStateException("Setpoint producer died");
+        }
+        long route = requested + 1;
+        requested = route;
+        LockSupport.unpark(producer);
+        try {
+            feed(route);
+        } finally {
+            //also ends a producer that is waiting for room because the stream stopped early or the controller threw
+            stopped = true;
+            LockSupport.unpark(producer);
+            awaitProducer(route);
+            controller.end();
+        }
+        stats.nanos = System.nanoTime() - start;
+        stats.underruns = controller.getUnderruns() - underrunsBefore;
+        if (producerError != null){
+            throw new IllegalStateException("Setpoint producer failed", producerError);
+        }
+        return stats;
+    }
+
+    /**
+     * Ends the producer thread. Waits for it, so don't call it from a {@link Controller} while streaming.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        stopped = true;
+        if (producer.isAlive()){
+            LockSupport.unpark(producer);
+            join(producer);
+        }
+    }
+
+    private void produceLoop(){
+        long done = 0;
+        while (!closed){
+            if (requested == done){
+                LockSupport.park(this);
+                continue;
+            }
+            done = requested;
+            produce();
+            //clear the references so a finished route can be collected while the streamer sits idle
+            leadPath = leftPath = rightPath = null;
+            finished = done;
+            LockSupport.unpark(streamer);
+        }
+    }
+
+    private void produce(){
+        int size = leadPath.size();
+        try {
+            for (int index = 0; index < size; ){
+                long position = tail.get();
+                //backpressure: wait for the streaming thread to free a batch
+                while (position - head.get() >= batches.length){
+                    if (stopped){
+                        return;
+                    }
+                    producerParked = true;
+                    if (position - head.get() >= batches.length){
+                        LockSupport.parkNanos(kPollNanos);
+                    }
+                    producerParked = false;
+                }
+                Batch batch = batches[(int) (position % batches.length)];
+                int count = Math.min(batchSize, size - index);
+                for (int i = 0; i < count; i++, index++){
+                    batch.leftPos[i] = leftPath.getPosClamped(index);
+                    batch.leftVel[i] = leftPath.getVelClamped(index);
+                    batch.rightPos[i] = rightPath.getPosClamped(index);
+                    batch.rightVel[i] = rightPath.getVelClamped(index);
+                    batch.time[i] = leadPath.getTime(index);
+                }
+                batch.size = count;
+                batch.last = index >= size;
+                tail.set(position + 1);
+                if (streamerParked){
+                    LockSupport.unpark(streamer);
+                }
+            }
+        } catch (RuntimeException e){
+            producerError = e;
+        }
+    }
+
+    /**
+     * @return whether the producer is done with the route, or died
+     */
+    private boolean producerDone(long route){
+        return finished >= route || !producer.isAlive();
+    }
+
+    private void awaitProducer(long route){
+        while (!producerDone(route)){
+            LockSupport.parkNanos(kPollNanos);
+        }
+    }
+
+    private void feed(long route){
+        while (!stopped){
+            long position = head.get();
+            if (position == tail.get()){
+                //the producer only finishes without a last batch if it failed
+                if (producerDone(route) && position == tail.get()){
+                    return;
+                }
+                stats.producerWaits++;
+                streamerParked = true;
+                if (position == tail.get()){
+                    LockSupport.parkNanos(kPollNanos);
+                }
+                streamerParked = false;
+                continue;
+            }
+            Batch batch = batches[(int) (position % batches.length)];
+            int offset = 0;
+            while (offset < batch.size && !stopped){
+                int space = controller.getFreeSpace();
+                if (space <= 0){
+                    stats.controllerWaits++;
+                    LockSupport.parkNanos(kPollNanos);
+                    continue;
+                }
+                int count = Math.min(space, batch.size - offset);
+                controller.push(batch, offset, count);
+                stats.pushes++;
+                offset += count;
+            }
+            stats.points += offset;
+            stats.batches++;
+            boolean last = batch.last;
+            head.set(position + 1);
+            if (producerParked){
+                LockSupport.unpark(producer);
+            }
+            if (last){
+                return;
+            }
+        }
+    }
+
+    private static void join(Thread thread){
+        boolean interrupted = false;
+        while (thread.isAlive()){
+            try {
+                thread.join();
+            } catch (InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if (interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package subsystems;
+
+import math.RigidTransform;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records telemetry from the control loop without slowing it down.
+ *
+ * Samples go into a preallocated single producer / single consumer ring buffer of primitive records
+ * (type, time and up to four values). A background thread drains them in batches and writes them out as CSV:
+ *      type,time,a,b,c,d
+ *
+ * Recording never allocates, locks or waits. If the drain thread falls behind and the buffer fills up,
+ * new samples are dropped and counted ({@link #getDropped()}).
+ *
+ * Only one thread may record samples.
+ */
+public class TelemetryRecorder implements AutoCloseable {
+
+    public static final int kSetpoint = 0;      //a = pos, b = vel, c = acc
+    public static final int kPose = 1;          //a = x, b = y, c = heading (radians)
+    public static final int kDriveVelocity = 2; //a = left, b = right
+
+    private static final int kStride = 6;
+    private static final int kMaxBatch = 4096;
+    private static final long kIdleNanos = 1_000_000L;
+
+    private final double[] records;
+    private final int capacity;
+    private final int mask;
+    //head is only written by the drain thread, tail only by the producer
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead;
+    private volatile long dropped;
+
+    private final Writer out;
+    private final Thread drainThread;
+    private volatile boolean running;
+    private volatile IOException error;
+    private final StringBuilder batch = new StringBuilder(kMaxBatch * 64);
+    private char[] chars = new char[0];
+
+    /**
+     * @param capacity number of samples the buffer holds, rounded up to a power of two
+     * @param out      where the CSV goes, closed when the recorder is closed
+     */
+    public TelemetryRecorder(int capacity, Writer out){
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.records = new double[size * kStride];
+        this.out = out;
+        drainThread = new Thread(this::drainLoop, "telemetry");
+        drainThread.setDaemon(true);
+    }
+
+    public TelemetryRecorder start(){
+        running = true;
+        drainThread.start();
+        return this;
+    }
+
+    public void recordSetpoint(double time, double pos, double vel, double acc){
+        record(kSetpoint, time, pos, vel, acc, 0);
+    }
+
+    public void recordPose(double time, RigidTransform pose){
+        record(kPose, time, pose.getTranslation().x(), pose.getTranslation().y(), pose.getRotation().radians(), 0);
+    }
+
+    public void recordDriveVelocity(double time, Kinematics.DriveVelocity velocity){
+        record(kDriveVelocity, time, velocity.left, velocity.right, 0, 0);
+    }
+
+    /**
+     * Records a sample of any type
+     * @return false if the buffer was full and the sample was dropped
+     */
+    public boolean record(int type, double time, double a, double b, double c, double d){
+        long position = tail.get();
+        if (position - cachedHead >= capacity){
+            cachedHead = head.get();
+            if (position - cachedHead >= capacity){
+                dropped++;
+                return false;
+            }
+        }
+        int offset = (int)(position & mask) * kStride;
+        records[offset] = type;
+        records[offset + 1] = time;
+        records[offset + 2] = a;
+        records[offset + 3] = b;
+        records[offset + 4] = c;
+        records[offset + 5] = d;
+        //ordered store, so the drain thread sees the record before the new tail
+        tail.lazySet(position + 1);
+        return true;
+    }
+
+    public long getDropped(){
+        return dropped;
+    }
+
+    public long getRecorded(){
+        return tail.get();
+    }
+
+    /**
+     * @return the error that stopped the drain thread, or null
+     */
+    public IOException getError(){
+        return error;
+    }
+
+    private void drainLoop(){
+        try {
+            while (running){
+                if (drainBatch() == 0){
+                    LockSupport.parkNanos(kIdleNanos);
+                }
+            }
+            while (drainBatch() > 0);
+            out.flush();
+        } catch (IOException e){
+            error = e;
+        }
+    }
+
+    private int drainBatch() throws IOException {
+        long position = head.get();
+        int count = (int) Math.min(tail.get() - position, kMaxBatch);
+        if (count == 0){
+            return 0;
+        }
+        batch.setLength(0);
+        for (int i = 0; i < count; i++){
+            int offset = (int)((position + i) & mask) * kStride;
+            batch.append((int) records[offset]).append(',').append(records[offset + 1]);
+            for (int j = 2; j < kStride; j++){
+                batch.append(',').append(records[offset + j]);
+            }
+            batch.append('\n');
+        }
+        //the records are copied out, so the producer can reuse their slots while we write
+        head.lazySet(position + count);
+        if (chars.length < batch.length()){
+            chars = new char[batch.length() * 2];
+        }
+        batch.getChars(0, batch.length(), chars, 0);
+        out.write(chars, 0, batch.length());
+        return count;
+    }
+
+    /**
+     * Stops the drain thread once everything recorded so far is written, then closes the writer
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (drainThread.isAlive()){
+            LockSupport.unpark(drainThread);
+            try {
+                drainThread.join();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        out.close();
+        if (error != null){
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package trajectory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only trajectory whose columns live in a (memory mapped) buffer written by {@link TrajectoryFile}.
+ * Values are read straight out of the buffer, nothing is parsed or copied when the file is opened.
+ */
+class MappedTrajectory extends Trajectory {
+
+    private final ByteBuffer buffer;
+    private final int posOffset, velOffset, accOffset, timeOffset;
+    private final int size;
+
+    /**
+     * @param buffer little-endian buffer holding the file
+     * @param offset byte offset of the pos column, the vel, acc and time columns follow it
+     * @param size   number of points
+     */
+    MappedTrajectory(ByteBuffer buffer, int offset, int size){
+        super(0);
+        this.buffer = buffer;
+        this.size = size;
+        posOffset = offset;
+        velOffset = posOffset + size * 8;
+        accOffset = velOffset + size * 8;
+        timeOffset = accOffset + size * 8;
+        freeze();
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public double getPos(int index){
+        checkIndex(index);
+        return buffer.getDouble(posOffset + index * 8);
+    }
+
+    @Override
+    public double getVel(int index){
+        checkIndex(index);
+        return buffer.getDouble(velOffset + index * 8);
+    }
+
+    @Override
+    public double getAcc(int index){
+        checkIndex(index);
+        return buffer.getDouble(accOffset + index * 8);
+    }
+
+    @Override
+    public double getTime(int index){
+        checkIndex(index);
+        return buffer.getDouble(timeOffset + index * 8);
+    }
+}
@@ -0,0 +1,346 @@
+package trajectory;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plans trajectories on background threads so the control loop never waits on a generator.
+ *
+ * Every request returns a {@link CompletableFuture} right away. The control loop polls it with isDone()/getNow()
+ * (or chains work onto it) and keeps following the old plan until the new one is there.
+ *
+ * Basically:
+ *      priority:    higher priority requests are taken off the queue first, same priority in submission order.
+ *      deadline:    a request that isn't done within its timeout completes with a {@link TimeoutException}.
+ *      latest wins: a request with the same key as an earlier one cancels it, e.g. "drive" for the current replan.
+ *      coalescing:  a request with the same inputs as one that is still queued or running shares its work
+ *                   instead of planning again (the first request's priority is kept).
+ *      bounded:     a fixed number of worker threads and at most maxQueued waiting requests, past that new
+ *                   requests complete right away with a {@link RejectedExecutionException}.
+ * Work nobody is waiting for anymore (cancelled, superseded or timed out) is skipped when it comes off the queue,
+ * so stale plans don't use any CPU. A plan that is already running can't be interrupted; it finishes and the
+ * result is dropped.
+ *
+ * Queue time (submitted to started) and compute time go into the "PlanningService.queue" and
+ * "PlanningService.compute" histograms, next to counters for each of the outcomes above.
+ */
+public class PlanningService implements AutoCloseable {
+
+    public static final int kLowPriority = 0;
+    public static final int kNormalPriority = 5;
+    public static final int kHighPriority = 10;
+
+    private static final Histogram kQueueTime = Metrics.histogram("PlanningService.queue");
+    private static final Histogram kComputeTime = Metrics.histogram("PlanningService.compute");
+    private static final Counter kSubmitted = Metrics.counter("PlanningService.submitted");
+    private static final Counter kCoalesced = Metrics.counter("PlanningService.coalesced");
+    private static final Counter kSuperseded = Metrics.counter("PlanningService.superseded");
+    private static final Counter kExpired = Metrics.counter("PlanningService.expired");
+    private static final Counter kSkipped = Metrics.counter("PlanningService.skipped");
+    private static final Counter kRejected = Metrics.counter("PlanningService.rejected");
+
+    private final int maxQueued;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    //work that is queued or running, by its inputs
+    private final ConcurrentHashMap<Object, Task<?>> inFlight = new ConcurrentHashMap<>();
+    //every task that hasn't run yet or is running, so close() can cancel them
+    private final Set<Task<?>> pending = ConcurrentHashMap.newKeySet();
+    //the newest request for every key
+    private final ConcurrentHashMap<String, CompletableFuture<?>> latest = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads   worker threads, they run just below normal priority so they don't compete with the control loop
+     * @param maxQueued how many requests may wait for a worker
+     */
+    public PlanningService(int threads, int maxQueued){
+        if (threads <= 0 || maxQueued <= 0){
+            throw new IllegalArgumentException("Threads and queue size must be positive");
+        }
+        this.maxQueued = maxQueued;
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "planning-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "planning-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    public PlanningService(){
+        this(1, 64);
+    }
+
+    /**
+     * Plans a straight trapezoidal profile, the same as {@link TrajectoryGenerator#createTrajectory(double, double, double)}
+     *
+     * @param key           requests with the same key replace each other, null to never be replaced
+     * @param timeoutMillis how long the plan may take from now, including time in the queue
+     */
+    public CompletableFuture<Trajectory> planTrajectory(String key, int priority, long timeoutMillis, double acc,
+                                                        double maxVel, double dt, double startVel, double endVel,
+                                                        double distance){
+        Inputs inputs = new Inputs("trajectory", acc, maxVel, dt, startVel, endVel, distance);
+        return submit(key, inputs, priority, timeoutMillis,
+                () -> new TrajectoryGenerator(acc, maxVel, dt).createTrajectory(startVel, endVel, distance));
+    }
+
+    /**
+     * Plans a curve, the same as {@link TrajectoryCurveGenerator#createTrajectoryCurve(double, double, double, double)}
+     * with the default robot track
+     *
+     * @param key           requests with the same key replace each other, null to never be replaced
+     * @param timeoutMillis how long the plan may take from now, including time in the queue
+     */
+    public CompletableFuture<TrajectoryPair> planCurve(String key, int priority, long timeoutMillis, double acc,
+                                                       double maxVel, double dt, double startVel, double endVel,
+                                                       double degrees, double turnRadius){
+        Inputs inputs = new Inputs("curve", acc, maxVel, dt, startVel, endVel, degrees, turnRadius);
+        return submit(key, inputs, priority, timeoutMillis,
+                () -> new TrajectoryCurveGenerator(acc, maxVel, dt).createTrajectoryCurve(startVel, endVel, degrees, turnRadius));
+    }
+
+    /**
+     * Runs any planner on the service.
+     *
+     * @param key           requests with the same key replace each other, null to never be replaced
+     * @param inputs        identifies the plan for coalescing (needs equals/hashCode), null to never coalesce.
+     *                      Equal inputs have to mean the planner gives the same result.
+     * @param timeoutMillis how long the plan may take from now, including time in the queue
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String key, Object inputs, int priority, long timeoutMillis, Supplier<T> planner){
+        if (workers.isShutdown()){
+            throw new IllegalStateException("Planning service is closed");
+        }
+        kSubmitted.increment();
+        CompletableFuture<T> request = new CompletableFuture<>();
+        //look up and register in one step, so two requests for the same inputs can't both start a task
+        Task<T> created = new Task<>(inputs, priority, sequence.getAndIncrement(), planner);
+        Task<T> task = inputs == null ? created
+                : (Task<T>) inFlight.compute(inputs, (k, existing) -> existing != null && existing.join() ? existing : created);
+        if (task != created){
+            kCoalesced.increment();
+        } else if (queued.incrementAndGet() > maxQueued){
+            queued.decrementAndGet();
+            kRejected.increment();
+            //through the task, so requests that were coalesced onto it in the meantime are rejected too
+            reject(created, "Planning queue is full");
+        } else {
+            pending.add(created);
+            try {
+                workers.execute(created);
+            } catch (RejectedExecutionException e){
+                //closed since the check above
+                queued.decrementAndGet();
+                pending.remove(created);
+                reject(created, "Planning service is closed");
+            }
+        }
+        task.attach(request);
+
+        //only now replace the previous request with this key: if both have the same inputs, this one has joined the
+        //task already, so cancelling the previous one doesn't leave it without waiters and throw a running plan away
+        if (key != null){
+            CompletableFuture<?> previous = latest.put(key, request);
+            if (previous != null && previous.cancel(false)){
+                kSuperseded.increment();
+            }
+            request.whenComplete((result, error) -> latest.remove(key, request));
+        }
+
+        if (request.isDone()){
+            return request;
+        }
+        ScheduledFuture<?> deadline;
+        try {
+            deadline = deadlines.schedule(() -> {
+                if (request.completeExceptionally(new TimeoutException("Plan missed its " + timeoutMillis + "ms deadline"))){
+                    kExpired.increment();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e){
+            request.completeExceptionally(new RejectedExecutionException("Planning service is closed"));
+            return request;
+        }
+        request.whenComplete((result, error) -> deadline.cancel(false));
+        return request;
+    }
+
+    private void reject(Task<?> task, String reason){
+        if (task.inputs != null){
+            inFlight.remove(task.inputs, task);
+        }
+        task.result.completeExceptionally(new RejectedExecutionException(reason));
+    }
+
+    /**
+     * @return requests waiting for a worker, including skipped ones that haven't come off the queue yet
+     */
+    public int getQueued(){
+        return queued.get();
+    }
+
+    /**
+     * Cancels every request that isn't done yet, queued or running, and stops the threads.
+     * Running plans are interrupted, but their results are dropped either way.
+     */
+    @Override
+    public void close(){
+        //cancel before interrupting, so a running plan that gives up on the interrupt can't complete normally
+        for (Task<?> task : pending){
+            task.result.cancel(false);
+        }
+        //and whatever was queued in the meantime
+        for (Runnable runnable : workers.shutdownNow()){
+            queued.decrementAndGet();
+            ((Task<?>) runnable).result.cancel(false);
+        }
+        deadlines.shutdownNow();
+        for (CompletableFuture<?> request : latest.values()){
+            request.cancel(false);
+        }
+    }
+
+    /**
+     * One piece of planning work, shared by every request it was coalesced with.
+     * The work runs as long as at least one of them is still waiting on it.
+     */
+    private final class Task<T> implements Runnable, Comparable<Task<?>> {
+        private final Object inputs;
+        private final int priority;
+        private final long sequence;
+        private final Supplier<T> planner;
+        private final long submitted = System.nanoTime();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        //one per request waiting on it, starting with the one that submitted it
+        private final AtomicInteger waiting = new AtomicInteger(1);
+
+        Task(Object inputs, int priority, long sequence, Supplier<T> planner){
+            this.inputs = inputs;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.planner = planner;
+        }
+
+        /**
+         * @return false if nobody is waiting anymore, so the task is going to be skipped and can't be joined
+         */
+        boolean join(){
+            int count;
+            do {
+                count = waiting.get();
+                if (count == 0){
+                    return false;
+                }
+            } while (!waiting.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Hands the result to a request that holds one of the waiting counts, and gives the count back once the request
+         * is done for any reason
+         */
+        void attach(CompletableFuture<T> request){
+            result.whenComplete((value, error) -> {
+                if (error != null){
+                    request.completeExceptionally(error);
+                } else {
+                    request.complete(value);
+                }
+            });
+            request.whenComplete((value, error) -> release());
+        }
+
+        private void release(){
+            if (waiting.decrementAndGet() == 0 && inputs != null){
+                inFlight.remove(inputs, this);
+            }
+        }
+
+        @Override
+        public void run(){
+            queued.decrementAndGet();
+            if (waiting.get() == 0 || result.isDone()){
+                pending.remove(this);
+                kSkipped.increment();
+                return;
+            }
+            long start = System.nanoTime();
+            kQueueTime.record(start - submitted);
+            try {
+                result.complete(planner.get());
+            } catch (Throwable e){
+                //errors too (StackOverflowError, OutOfMemoryError), or the requests would never complete
+                result.completeExceptionally(e);
+            } finally {
+                kComputeTime.record(System.nanoTime() - start);
+                pending.remove(this);
+                if (inputs != null){
+                    inFlight.remove(inputs, this);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other){
+            if (priority != other.priority){
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Generator inputs for coalescing
+     */
+    private static final class Inputs {
+        private final String kind;
+        private final double[] values;
+
+        Inputs(String kind, double... values){
+            this.kind = kind;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if (!(o instanceof Inputs)){
+                return false;
+            }
+            Inputs other = (Inputs) o;
+            return kind.equals(other.kind) && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31 * kind.hashCode() + Arrays.hashCode(values);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package trajectory;
+
+import math.RigidTransform;
+import math.Rotation;
+import math.Translation;
+
+import java.util.Arrays;
+
+/**
+ * Predicted drive of a route, one row per trajectory point: time, left/right wheel position and velocity,
+ * and the robot pose (x, y, heading in radians).
+ *
+ * Stored as primitive columns that can be cleared and refilled, so the same track can be reused for route after route.
+ */
+public class PoseTrack {
+
+    private double[] time;
+    private double[] left, right;
+    private double[] leftVel, rightVel;
+    private double[] x, y, heading;
+    private int size;
+
+    public PoseTrack(int capacity){
+        int initial = Math.max(capacity, 0);
+        time = new double[initial];
+        left = new double[initial];
+        right = new double[initial];
+        leftVel = new double[initial];
+        rightVel = new double[initial];
+        x = new double[initial];
+        y = new double[initial];
+        heading = new double[initial];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Empties the track, keeping its storage
+     */
+    public void clear(){
+        size = 0;
+    }
+
+    public void add(double time, double left, double right, double leftVel, double rightVel, double x, double y, double heading){
+        ensureCapacity(size + 1);
+        this.time[size] = time;
+        this.left[size] = left;
+        this.right[size] = right;
+        this.leftVel[size] = leftVel;
+        this.rightVel[size] = rightVel;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.heading[size] = heading;
+        size++;
+    }
+
+    public void ensureCapacity(int capacity){
+        if (capacity <= time.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, time.length + (time.length >> 1) + 1);
+        time = Arrays.copyOf(time, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        leftVel = Arrays.copyOf(leftVel, newCapacity);
+        rightVel = Arrays.copyOf(rightVel, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        heading = Arrays.copyOf(heading, newCapacity);
+    }
+
+    public double getTime(int index){
+        checkIndex(index);
+        return time[index];
+    }
+
+    public double getLeft(int index){
+        checkIndex(index);
+        return left[index];
+    }
+
+    public double getRight(int index){
+        checkIndex(index);
+        return right[index];
+    }
+
+    public double getLeftVel(int index){
+        checkIndex(index);
+        return leftVel[index];
+    }
+
+    public double getRightVel(int index){
+        checkIndex(index);
+        return rightVel[index];
+    }
+
+    public double getX(int index){
+        checkIndex(index);
+        return x[index];
+    }
+
+    public double getY(int index){
+        checkIndex(index);
+        return y[index];
+    }
+
+    /**
+     * @return heading in radians
+     */
+    public double getHeading(int index){
+        checkIndex(index);
+        return heading[index];
+    }
+
+    public RigidTransform getPose(int index){
+        checkIndex(index);
+        return new RigidTransform(new Translation(x[index], y[index]), Rotation.fromRadians(heading[index]));
+    }
+
+    private void checkIndex(int index){
+        if (index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
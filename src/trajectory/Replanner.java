@@ -0,0 +1,111 @@
+package trajectory;
+
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * Plans a new trapezoidal profile from wherever the robot is right now, for when it gets bumped or the target moves.
+ *
+ * Unlike {@link TrajectoryGenerator#generateTrajectory(double, double, double)}, the new profile starts at the current
+ * position, velocity and time rather than at 0, so it can be spliced straight onto the move in progress, and it is
+ * written into a small pool of preallocated trajectories instead of a new one each time. The segment math lives in
+ * one reused {@link TrapezoidalProfile.Segments}, so once the buffers have grown to the longest horizon asked for,
+ * replanning doesn't allocate at all and takes microseconds (see benchmark.ReplanBenchmark), far below a 5ms control period.
+ *
+ * Buffers are handed out round robin, so a trajectory returned by {@link #replan} stays valid until
+ * poolSize - 1 more replans have happened. Followers should switch to the new one before then, and nobody
+ * should {@link Trajectory#freeze() freeze} them.
+ *
+ * Not thread safe: replan from the control loop thread.
+ */
+public class Replanner {
+
+    private static final Histogram kReplanTime = Metrics.histogram("Replanner.replan");
+
+    private final double acc;
+    private final double maxVel;
+    private final double dt;
+    private final Trajectory[] buffers;
+    private final TrapezoidalProfile.Segments segments = new TrapezoidalProfile.Segments();
+    private int next;
+    private boolean feasible = true;
+
+    /**
+     * @param poolSize    how many buffers to rotate through, at least 2 so the trajectory being followed
+     *                    isn't overwritten by the replan that replaces it
+     * @param maxDuration longest plan (seconds) to preallocate room for, longer ones grow the buffers once
+     */
+    public Replanner(double acc, double maxVel, double dt, int poolSize, double maxDuration){
+        if (poolSize < 2){
+            throw new IllegalArgumentException("Pool size must be at least 2");
+        }
+        this.acc = acc;
+        this.maxVel = maxVel;
+        this.dt = dt;
+        buffers = new Trajectory[poolSize];
+        int capacity = (int) Math.ceil(maxDuration / dt) + 1;
+        for (int i = 0; i < poolSize; i++){
+            buffers[i] = new Trajectory(capacity);
+        }
+    }
+
+    public Replanner(double acc, double maxVel, double dt){
+        this(acc, maxVel, dt, 2, 10);
+    }
+
+    /**
+     * Plans from the current state to a goal position.
+     *
+     * If the robot is going too fast to slow down to endVel by the goal (say it got bumped forward), the plan brakes
+     * at the set acceleration all the way and ends past the goal. If it is too slow to speed up to endVel, it speeds
+     * up all the way and reaches the goal below endVel. Either way {@link #isFeasible()} is false afterwards.
+     *
+     * @param pos        current position, on the same scale as goalPos
+     * @param vel        current velocity, clamped to maxVel
+     * @param timeOffset time stamp of the current state on the old trajectory's clock. It becomes the stamp of the new
+     *                   trajectory's first point (which is the current state), and point i is stamped timeOffset + i*dt,
+     *                   so a plan to the old goal lines up with the old trajectory's stamps
+     * @param goalPos    position to end at
+     * @param endVel     velocity to end with
+     * @return a pooled trajectory with absolute positions and times, see the class comment for how long it stays valid
+     * @throws IllegalArgumentException if the goal is behind the robot
+     */
+    public Trajectory replan(double pos, double vel, double timeOffset, double goalPos, double endVel){
+        long start = kReplanTime.start();
+        double distance = goalPos - pos;
+        if (distance < 0){
+            throw new IllegalArgumentException("Goal " + goalPos + " is behind the current position " + pos);
+        }
+        double startVel = Math.min(vel, maxVel);
+        segments.set(acc, maxVel, startVel, endVel, distance);
+        feasible = segments.isFeasible();
+        if (!feasible){
+            segments.setRamp(acc, startVel, endVel, distance);
+        }
+        Trajectory out = buffers[next];
+        next = (next + 1) % buffers.length;
+        //sampleInto stamps point 0 at timeOffset + dt, see Trajectory for why
+        segments.sampleInto(out, dt, pos, timeOffset - dt);
+        kReplanTime.stop(start);
+        return out;
+    }
+
+    /**
+     * @return false if the last replan couldn't reach the goal at endVel and is a best effort ramp instead
+     */
+    public boolean isFeasible(){
+        return feasible;
+    }
+
+    /**
+     * Replans from wherever the cursor currently is on the trajectory it follows.
+     * The new trajectory's first point is the cursor's state, stamped with the cursor's time.
+     */
+    public Trajectory replan(Trajectory.Cursor cursor, double goalPos, double endVel){
+        return replan(cursor.getPos(), cursor.getVel(), cursor.getTime(), goalPos, endVel);
+    }
+
+    public double getDt(){
+        return dt;
+    }
+}
@@ -0,0 +1,202 @@
+package trajectory;
+
+import math.FastMath;
+
+import java.util.Arrays;
+
+/**
+ * Builds one continuous route out of straight lines and arcs, for example line, arc, line, arc, line.
+ * (For generating many separate routes at once, see {@link RouteLibraryBuilder}.)
+ *
+ * Instead of a profile per piece with the velocities chained by hand, the whole route gets a single
+ * {@link TrapezoidalProfile} over the centerline distance, so velocity is continuous across every boundary and there
+ * is one time base. Each profile sample is then placed on its segment in closed form: the left/right wheel distances
+ * and the pose (x, y, heading) are written straight into a {@link PoseTrack} in the same pass. On arcs the heading is
+ * stepped by a small rotation between samples instead of calling sin/cos, so a 10 segment route costs about the same
+ * as sampling one straight profile.
+ *
+ * The cruise velocity is capped so the outer wheel on the tightest arc never goes over maxVel.
+ *
+ * Only the centerline velocity is continuous. Curvature jumps where a line meets an arc (or two arcs meet), so the
+ * wheel velocities step there by vel * halfTrack * (change in curvature): entering a radius 5 arc at 10/s with a 2.4
+ * track moves each wheel by 2.4/s in one sample. Getting rid of that needs transition curves (clothoids) between
+ * segments, which this builder doesn't do; slow down before tight arcs (lower maxVel) if the drive can't take the step.
+ * Arcs turn left (counterclockwise) for positive degrees and right for negative ones.
+ */
+public class RouteBuilder {
+
+    private final double acc;
+    private final double maxVel;
+    private final double dt;
+    private final double robotTrack;
+
+    //per segment: length along the centerline and signed curvature (0 for lines)
+    private double[] lengths = new double[8];
+    private double[] curvatures = new double[8];
+    private int count;
+
+    public RouteBuilder(double acc, double maxVel, double dt, double robotTrack){
+        this.acc = acc;
+        this.maxVel = maxVel;
+        this.dt = dt;
+        this.robotTrack = robotTrack;
+    }
+
+    public RouteBuilder addLine(double length){
+        if (length <= 0){
+            throw new IllegalArgumentException("Line length must be positive");
+        }
+        return add(length, 0);
+    }
+
+    /**
+     * @param degrees how far to turn, positive turns left
+     * @param radius  turn radius of the centerline, has to be more than half the robot track
+     */
+    public RouteBuilder addArc(double degrees, double radius){
+        if (degrees == 0 || radius <= robotTrack / 2){
+            throw new IllegalArgumentException("Arc needs a nonzero angle and a radius over half the track");
+        }
+        return add(Math.toRadians(Math.abs(degrees)) * radius, Math.signum(degrees) / radius);
+    }
+
+    private RouteBuilder add(double length, double curvature){
+        if (count == lengths.length){
+            lengths = Arrays.copyOf(lengths, count * 2);
+            curvatures = Arrays.copyOf(curvatures, count * 2);
+        }
+        lengths[count] = length;
+        curvatures[count] = curvature;
+        count++;
+        return this;
+    }
+
+    public int getSegmentCount(){
+        return count;
+    }
+
+    /**
+     * Total centerline length of the route
+     */
+    public double getLength(){
+        double length = 0;
+        for (int i = 0; i < count; i++){
+            length += lengths[i];
+        }
+        return length;
+    }
+
+    /**
+     * Cruise velocity limit, lowered so the outer wheel stays under maxVel on the tightest arc
+     */
+    public double getVelocityLimit(){
+        double limit = maxVel;
+        for (int i = 0; i < count; i++){
+            limit = Math.min(limit, maxVel / (1 + Math.abs(curvatures[i]) * robotTrack / 2));
+        }
+        return limit;
+    }
+
+    public PoseTrack build(double startVel, double endVel){
+        return build(startVel, endVel, new PoseTrack(0));
+    }
+
+    /**
+     * Generates the route, starting at the origin facing along +x
+     *
+     * @param out track to clear and fill, grown only if it's too small
+     * @return out
+     */
+    public PoseTrack build(double startVel, double endVel, PoseTrack out){
+        if (count == 0){
+            throw new IllegalStateException("Route has no segments");
+        }
+        TrapezoidalProfile profile = new TrapezoidalProfile(acc, getVelocityLimit(), dt, startVel, endVel, getLength());
+        int size = profile.size();
+        out.clear();
+        out.ensureCapacity(size);
+
+        //state at the start of the current segment
+        int segment = 0;
+        double segmentStart = 0;
+        double x0 = 0, y0 = 0, heading0 = 0, sin0 = 0, cos0 = 1;
+        double left0 = 0, right0 = 0;
+        double halfTrack = robotTrack / 2;
+        //heading of the previous sample on the current arc, stepped forward by a small rotation instead of new trig
+        double ds = 0, sin = 0, cos = 1;
+        for (int i = 0; i < size; i++){
+            double distance = profile.getPos(i);
+            double vel = profile.getVel(i);
+            //move on to the segment the distance falls in, carrying the end state of each one we leave
+            boolean moved = false;
+            while (segment + 1 < count && distance > segmentStart + lengths[segment]){
+                double length = lengths[segment];
+                double curvature = curvatures[segment];
+                double heading1 = wrap(heading0 + curvature * length);
+                double sin1 = Math.sin(heading1);
+                double cos1 = Math.cos(heading1);
+                if (curvature == 0){
+                    x0 += length * cos0;
+                    y0 += length * sin0;
+                } else {
+                    x0 += (sin1 - sin0) / curvature;
+                    y0 -= (cos1 - cos0) / curvature;
+                }
+                left0 += length * (1 - curvature * halfTrack);
+                right0 += length * (1 + curvature * halfTrack);
+                heading0 = heading1;
+                sin0 = sin1;
+                cos0 = cos1;
+                segmentStart += length;
+                segment++;
+                moved = true;
+            }
+            if (moved || i == 0){
+                ds = 0;
+                sin = sin0;
+                cos = cos0;
+            }
+            double curvature = curvatures[segment];
+            double step = distance - segmentStart - ds;
+            ds += step;
+            double x, y;
+            if (curvature == 0){
+                x = x0 + ds * cos0;
+                y = y0 + ds * sin0;
+            } else {
+                double angle = curvature * step;
+                double stepSin, stepCos;
+                if (Math.abs(angle) < FastMath.kSmallAngle){
+                    stepSin = angle * FastMath.sinOverTheta(angle);
+                    stepCos = 1 - angle * FastMath.oneMinusCosOverTheta(angle);
+                } else {
+                    stepSin = Math.sin(angle);
+                    stepCos = Math.cos(angle);
+                }
+                double nextCos = cos * stepCos - sin * stepSin;
+                sin = sin * stepCos + cos * stepSin;
+                cos = nextCos;
+                x = x0 + (sin - sin0) / curvature;
+                y = y0 - (cos - cos0) / curvature;
+            }
+            double leftScale = 1 - curvature * halfTrack;
+            double rightScale = 1 + curvature * halfTrack;
+            out.add(profile.getTime(i), left0 + ds * leftScale, right0 + ds * rightScale, vel * leftScale, vel * rightScale,
+                    x, y, wrap(heading0 + curvature * ds));
+        }
+        return out;
+    }
+
+    /**
+     * @return the same angle in [-pi, pi]
+     */
+    private static double wrap(double radians){
+        while (radians > Math.PI){
+            radians -= 2 * Math.PI;
+        }
+        while (radians < -Math.PI){
+            radians += 2 * Math.PI;
+        }
+        return radians;
+    }
+}
@@ -0,0 +1,25 @@
+package trajectory;
+
+/**
+ * Read-only, indexed set of precomputed routes, built by {@link RouteLibraryBuilder}.
+ */
+public class RouteLibrary {
+
+    private final TrajectoryPair[] routes;
+
+    RouteLibrary(TrajectoryPair[] routes){
+        this.routes = routes;
+    }
+
+    public static RouteLibrary of(TrajectoryPair... routes){
+        return new RouteLibrary(routes.clone());
+    }
+
+    public int size(){
+        return routes.length;
+    }
+
+    public TrajectoryPair get(int index){
+        return routes[index];
+    }
+}
@@ -0,0 +1,108 @@
+package trajectory;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Collects a batch of straight and curved {@link RouteSpec routes}, then generates all of them as fork-join tasks,
+ * on the common pool or one you pass in. How the build time scales with the pool's thread count hasn't been measured
+ * on more than one core yet, see benchmark.RouteLibraryBenchmark.
+ *
+ * Generation goes through {@link TrajectoryGenerator#createTrajectory(double, double, double)} and
+ * {@link TrajectoryCurveGenerator#createTrajectoryCurve(double, double, double, double)}, which don't touch any
+ * generator state, so one pair of generators is shared by every worker.
+ */
+public class RouteLibraryBuilder {
+
+    //routes are a few microseconds to a few milliseconds each, so split all the way down to small batches
+    private static final int kBatchSize = 2;
+
+    private final TrajectoryGenerator trajectoryGenerator;
+    private final TrajectoryCurveGenerator curveGenerator;
+    private final ArrayList<RouteSpec> specs = new ArrayList<>();
+
+    public RouteLibraryBuilder(double acc, double maxVel, double dt, double robotTrack){
+        this(acc, maxVel, dt, robotTrack, null);
+    }
+
+    /**
+     * @param cache optional cache to share generated paths through, can be null
+     */
+    public RouteLibraryBuilder(double acc, double maxVel, double dt, double robotTrack, TrajectoryCache cache){
+        trajectoryGenerator = new TrajectoryGenerator(acc, maxVel, dt);
+        curveGenerator = cache == null ? new TrajectoryCurveGenerator(acc, maxVel, dt)
+                : new TrajectoryCurveGenerator(acc, maxVel, dt, cache);
+        curveGenerator.robotTrack = robotTrack;
+    }
+
+    /**
+     * @return index of the route in the built library
+     */
+    public int add(RouteSpec spec){
+        if (spec == null){
+            throw new IllegalArgumentException("Route spec can't be null");
+        }
+        specs.add(spec);
+        return specs.size() - 1;
+    }
+
+    /**
+     * Same as add(RouteSpec.straight(startVel, endVel, distance))
+     * @return index of the route in the built library
+     */
+    public int addStraight(double startVel, double endVel, double distance){
+        return add(RouteSpec.straight(startVel, endVel, distance));
+    }
+
+    /**
+     * Same as add(RouteSpec.curve(startVel, endVel, degrees, turnRadius))
+     * @return index of the route in the built library
+     */
+    public int addCurve(double startVel, double endVel, double degrees, double turnRadius){
+        return add(RouteSpec.curve(startVel, endVel, degrees, turnRadius));
+    }
+
+    public RouteSpec getSpec(int index){
+        return specs.get(index);
+    }
+
+    public int size(){
+        return specs.size();
+    }
+
+    public RouteLibrary build(){
+        return build(ForkJoinPool.commonPool());
+    }
+
+    public RouteLibrary build(ForkJoinPool pool){
+        TrajectoryPair[] routes = new TrajectoryPair[specs.size()];
+        pool.invoke(new GenerateTask(routes, 0, routes.length));
+        return new RouteLibrary(routes);
+    }
+
+    private class GenerateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TrajectoryPair[] routes;
+        private final int from, to;
+
+        GenerateTask(TrajectoryPair[] routes, int from, int to){
+            this.routes = routes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from <= kBatchSize){
+                for (int i = from; i < to; i++){
+                    routes[i] = specs.get(i).generate(trajectoryGenerator, curveGenerator);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GenerateTask(routes, from, middle), new GenerateTask(routes, middle, to));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package trajectory;
+
+/**
+ * What to generate for one route of a {@link RouteLibraryBuilder}: a straight line or a curve, with its velocities.
+ * Make them with {@link #straight(double, double, double)} and {@link #curve(double, double, double, double)}.
+ */
+public final class RouteSpec {
+
+    public enum Type {
+        STRAIGHT, CURVE
+    }
+
+    private final Type type;
+    private final double startVel;
+    private final double endVel;
+    private final double distance;
+    private final double degrees;
+    private final double turnRadius;
+
+    private RouteSpec(Type type, double startVel, double endVel, double distance, double degrees, double turnRadius){
+        this.type = type;
+        this.startVel = startVel;
+        this.endVel = endVel;
+        this.distance = distance;
+        this.degrees = degrees;
+        this.turnRadius = turnRadius;
+    }
+
+    /**
+     * Same arguments as {@link TrajectoryGenerator#createTrajectory(double, double, double)}
+     */
+    public static RouteSpec straight(double startVel, double endVel, double distance){
+        return new RouteSpec(Type.STRAIGHT, startVel, endVel, distance, 0, 0);
+    }
+
+    /**
+     * Same arguments as {@link TrajectoryCurveGenerator#createTrajectoryCurve(double, double, double, double)}
+     */
+    public static RouteSpec curve(double startVel, double endVel, double degrees, double turnRadius){
+        return new RouteSpec(Type.CURVE, startVel, endVel, 0, degrees, turnRadius);
+    }
+
+    public Type getType(){
+        return type;
+    }
+
+    public double getStartVel(){
+        return startVel;
+    }
+
+    public double getEndVel(){
+        return endVel;
+    }
+
+    /**
+     * Length of a straight route, 0 for curves
+     */
+    public double getDistance(){
+        return distance;
+    }
+
+    /**
+     * How far a curve turns, 0 for straight routes
+     */
+    public double getDegrees(){
+        return degrees;
+    }
+
+    /**
+     * Turn radius of a curve, 0 for straight routes
+     */
+    public double getTurnRadius(){
+        return turnRadius;
+    }
+
+    /**
+     * Generates the route. Straight routes use the same path as lead and follow.
+     */
+    TrajectoryPair generate(TrajectoryGenerator trajectoryGenerator, TrajectoryCurveGenerator curveGenerator){
+        switch (type){
+            case STRAIGHT:
+                Trajectory path = trajectoryGenerator.createTrajectory(startVel, endVel, distance);
+                return new TrajectoryPair(path, path);
+            case CURVE:
+                return curveGenerator.createTrajectoryCurve(startVel, endVel, degrees, turnRadius);
+            default:
+                throw new IllegalStateException("Unknown route type " + type);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return type == Type.STRAIGHT
+                ? String.format("straight %.3f, vel %.3f -> %.3f", distance, startVel, endVel)
+                : String.format("curve %.3fdeg r=%.3f, vel %.3f -> %.3f", degrees, turnRadius, startVel, endVel);
+    }
+}
@@ -1,7 +1,24 @@
+
 package trajectory;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Class representing a sampled motion profile
+ *
+ * Samples are stored column by column in parallel primitive arrays (pos, vel, acc, time) instead of
+ * one {@link Point} object per sample. Basically a long route is four arrays rather than tens of thousands
+ * of small objects scattered around the heap, so iterating over it stays cache friendly.
+ *
+ * Trajectories sampled every dt stamp point i with the end of its period: it holds the state at i*dt and
+ * {@link #getTime(int)} returns (i+1)*dt. {@link #indexAt(double)}, {@link #sample(double)} and {@link Cursor}
+ * all look points up by that stamp.
+ */
 public class Trajectory {
 
 
@@ -34,23 +51,362 @@ public class Trajectory {
             return time;
         }
     }
-    public ArrayList<Point> points;
+
+    private double[] pos;
+    private double[] vel;
+    private double[] acc;
+    private double[] time;
+    private int size;
+    private boolean frozen;
+
+    /**
+     * Read-only {@link Point} view of the samples, kept for code written against the old list of points.
+     * Every {@link List#get(int)} creates a new point, so hot loops should use the index accessors instead.
+     */
+    public final List<Point> points = new AbstractList<Point>() {
+        @Override
+        public Point get(int index) {
+            return getPoint(index);
+        }
+
+        @Override
+        public int size() {
+            return Trajectory.this.size();
+        }
+    };
 
     public Trajectory(int size){
-        points = new ArrayList<Point>(size);
+        int capacity = Math.max(size, 0);
+        pos = new double[capacity];
+        vel = new double[capacity];
+        acc = new double[capacity];
+        time = new double[capacity];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public double getPos(int index){
+        checkIndex(index);
+        return pos[index];
+    }
+
+    public double getVel(int index){
+        checkIndex(index);
+        return vel[index];
+    }
+
+    public double getAcc(int index){
+        checkIndex(index);
+        return acc[index];
+    }
+
+    public double getTime(int index){
+        checkIndex(index);
+        return time[index];
+    }
+
+    public Point getPoint(int index){
+        return new Point(getPos(index), getVel(index), getAcc(index), getTime(index));
+    }
+
+    /**
+     * Clamps an index into this trajectory, so reading past either end gives the first/last point
+     * @return the closest valid index, or -1 if this trajectory is empty
+     */
+    public int clampIndex(int index){
+        int size = size();
+        if (size == 0){
+            return -1;
+        }
+        return Math.max(0, Math.min(index, size - 1));
+    }
+
+    /**
+     * Position at the {@link #clampIndex(int) clamped} index, or 0 if this trajectory is empty (a path with no points
+     * never moves), so paths of different lengths can be read side by side without checks
+     */
+    public double getPosClamped(int index){
+        int clamped = clampIndex(index);
+        return clamped < 0 ? 0 : getPos(clamped);
+    }
+
+    /**
+     * Velocity at the {@link #clampIndex(int) clamped} index, or 0 if this trajectory is empty
+     */
+    public double getVelClamped(int index){
+        int clamped = clampIndex(index);
+        return clamped < 0 ? 0 : getVel(clamped);
+    }
+
+    /**
+     * Finds the last point at or before time t.
+     *
+     * The index is first guessed assuming the points are evenly spaced in time, which is O(1) for anything
+     * sampled at a fixed dt. If the guess is wrong we fall back to a binary search.
+     *
+     * @return index of the last point with a time &lt;= t, or -1 if t is before the first point
+     */
+    public int indexAt(double t){
+        int size = size();
+        if (size == 0 || t < getTime(0)){
+            return -1;
+        }
+        if (t >= getTime(size - 1)){
+            return size - 1;
+        }
+        double firstTime = getTime(0);
+        int guess = (int)((t - firstTime) / (getTime(size - 1) - firstTime) * (size - 1));
+        guess = Math.max(0, Math.min(guess, size - 2));
+        if (getTime(guess) <= t && t < getTime(guess + 1)){
+            return guess;
+        }
+        int low = 0;
+        int high = size - 1;
+        //invariant: time[low] <= t < time[high]
+        while (high - low > 1){
+            int middle = (low + high) >>> 1;
+            if (getTime(middle) <= t){
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Linearly interpolates the points around time t. Times before the first or after the last point are clamped.
+     * For repeated lookups at increasing times a {@link Cursor} is cheaper.
+     *
+     * @return the interpolated point, or null if this trajectory is empty
+     */
+    public Point sample(double t){
+        if (size() == 0){
+            return null;
+        }
+        Cursor cursor = new Cursor(this);
+        cursor.moveTo(t);
+        return new Point(cursor.getPos(), cursor.getVel(), cursor.getAcc(), cursor.getTime());
+    }
+
+    public Cursor cursor(){
+        return new Cursor(this);
+    }
+
+    /**
+     * Stateful lookup for followers that read a trajectory at increasing times, possibly at a different rate than
+     * it was generated at. Moving forward walks from the previous point, so a whole pass over the trajectory is
+     * O(1) per lookup; moving backwards falls back to {@link #indexAt(double)}.
+     * Values are linearly interpolated and clamped to the first/last point.
+     */
+    public static class Cursor {
+        private final Trajectory trajectory;
+        private int index;
+        private double pos, vel, acc, time;
+
+        public Cursor(Trajectory trajectory){
+            this.trajectory = trajectory;
+            reset();
+        }
+
+        /**
+         * Moves back to the first point
+         */
+        public void reset(){
+            index = 0;
+            if (trajectory.size() > 0){
+                moveTo(trajectory.getTime(0));
+            }
+        }
+
+        /**
+         * @return this cursor, positioned at time t
+         */
+        public Cursor moveTo(double t){
+            int size = trajectory.size();
+            if (size == 0){
+                throw new IllegalStateException("Trajectory is empty");
+            }
+            if (t < trajectory.getTime(index)){
+                index = Math.max(trajectory.indexAt(t), 0);
+            } else {
+                while (index + 1 < size && trajectory.getTime(index + 1) <= t){
+                    index++;
+                }
+            }
+            if (index + 1 >= size || t <= trajectory.getTime(index)){
+                //clamped to an end, or exactly on a point
+                pos = trajectory.getPos(index);
+                vel = trajectory.getVel(index);
+                acc = trajectory.getAcc(index);
+                time = t;
+                return this;
+            }
+            double startTime = trajectory.getTime(index);
+            double fraction = (t - startTime) / (trajectory.getTime(index + 1) - startTime);
+            pos = interpolate(trajectory.getPos(index), trajectory.getPos(index + 1), fraction);
+            vel = interpolate(trajectory.getVel(index), trajectory.getVel(index + 1), fraction);
+            acc = interpolate(trajectory.getAcc(index), trajectory.getAcc(index + 1), fraction);
+            time = t;
+            return this;
+        }
+
+        private static double interpolate(double a, double b, double fraction){
+            return a + (b - a) * fraction;
+        }
+
+        /**
+         * @return index of the last point at or before the cursor (0 if the cursor is before the first point)
+         */
+        public int getIndex(){
+            return index;
+        }
+
+        public boolean isFinished(){
+            return index == trajectory.size() - 1;
+        }
+
+        public double getPos(){
+            return pos;
+        }
+
+        public double getVel(){
+            return vel;
+        }
+
+        public double getAcc(){
+            return acc;
+        }
+
+        public double getTime(){
+            return time;
+        }
+    }
+
+    /**
+     * Makes this trajectory read-only, so it can be shared (for example by {@link TrajectoryCache}).
+     * Adding points or clearing afterwards throws an {@link UnsupportedOperationException}.
+     * @return this trajectory
+     */
+    public Trajectory freeze(){
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    /**
+     * Appends a sample to the end of this trajectory, growing the columns if needed
+     */
+    public void addPoint(double pos, double vel, double acc, double time){
+        checkNotFrozen();
+        ensureCapacity(size + 1);
+        this.pos[size] = pos;
+        this.vel[size] = vel;
+        this.acc[size] = acc;
+        this.time[size] = time;
+        size++;
     }
 
     public void addPoint(int index, Point point){
-        points.add(index, point);
+        checkNotFrozen();
+        if (index < 0 || index > size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        //Shift everything after the index over by one, same as ArrayList.add(index, element)
+        int moved = size - index;
+        if (moved > 0){
+            System.arraycopy(pos, index, pos, index + 1, moved);
+            System.arraycopy(vel, index, vel, index + 1, moved);
+            System.arraycopy(acc, index, acc, index + 1, moved);
+            System.arraycopy(time, index, time, index + 1, moved);
+        }
+        pos[index] = point.getPos();
+        vel[index] = point.getVel();
+        acc[index] = point.getAcc();
+        time[index] = point.getTime();
+        size++;
+    }
+
+    /**
+     * Removes every point but keeps the columns, so the trajectory can be refilled without allocating
+     */
+    public void clear(){
+        checkNotFrozen();
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity){
+        if (capacity <= pos.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, pos.length + (pos.length >> 1) + 1);
+        pos = Arrays.copyOf(pos, newCapacity);
+        vel = Arrays.copyOf(vel, newCapacity);
+        acc = Arrays.copyOf(acc, newCapacity);
+        time = Arrays.copyOf(time, newCapacity);
+    }
+
+    /**
+     * View of this trajectory with pos, vel and acc multiplied by scale, see {@link TrajectoryView}.
+     * Generated follow paths keep the lead's acc instead, see {@link TrajectoryView#scaledPosVel(Trajectory, double)}.
+     */
+    public Trajectory scaled(double scale){
+        return new TrajectoryView(this, scale, 0, scale, scale, 0);
+    }
+
+    /**
+     * View of this trajectory with every position moved by offset, see {@link TrajectoryView}
+     */
+    public Trajectory offset(double posOffset){
+        return new TrajectoryView(this, 1, posOffset, 1, 1, 0);
+    }
+
+    /**
+     * View of this trajectory with every timestamp moved by timeShift, see {@link TrajectoryView}
+     */
+    public Trajectory shifted(double timeShift){
+        return new TrajectoryView(this, 1, 0, 1, 1, timeShift);
+    }
+
+    /**
+     * @return independent, array backed copy of this trajectory
+     */
+    public Trajectory copy(){
+        Trajectory copy = new Trajectory(size());
+        for (int i = 0; i < size(); i++){
+            copy.addPoint(getPos(i), getVel(i), getAcc(i), getTime(i));
+        }
+        return copy;
+    }
+
+    private void checkNotFrozen(){
+        //isFrozen, not the field, so computed subclasses that are always read-only can't be cleared either
+        if (isFrozen()){
+            throw new UnsupportedOperationException("Trajectory is frozen");
+        }
+    }
+
+    protected void checkIndex(int index){
+        if (index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
     }
 
     @Override
     public String toString(){
-        String rv = "";
-        rv += "Pos,Time\n";
-        for(Point p : points){
-            rv += p.pos + "," + p.time + "\n";
+        StringWriter writer = new StringWriter(size() * 24);
+        try {
+            new TrajectoryExporter(TrajectoryExporter.Column.POS, TrajectoryExporter.Column.TIME).export(this, writer);
+        } catch (IOException e){
+            //StringWriter doesn't throw
+            throw new UncheckedIOException(e);
         }
-        return rv;
+        return writer.toString();
     }
 }
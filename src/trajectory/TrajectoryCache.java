@@ -0,0 +1,186 @@
+package trajectory;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread safe cache of generated trajectories.
+ *
+ * Profiles are keyed on every generator input (acc, maxVel, dt, startVel, endVel, distance). Inputs are rounded
+ * to multiples of the tolerance first, so requests that only differ by noise share an entry. Entries are evicted least recently used first once the cached samples go over the byte budget.
+ *
+ * Cached trajectories are {@link Trajectory#freeze() frozen} and shared between callers, so they can't be modified.
+ */
+public class TrajectoryCache {
+
+    //pos, vel, acc and time columns
+    private static final long kBytesPerPoint = 4 * 8;
+
+    //totals over every cache, next to the per cache counters below
+    private static final Counter kHits = Metrics.counter("TrajectoryCache.hits");
+    private static final Counter kMisses = Metrics.counter("TrajectoryCache.misses");
+    private static final Counter kEvictions = Metrics.counter("TrajectoryCache.evictions");
+    private static final Histogram kMissTime = Metrics.histogram("TrajectoryCache.generate");
+
+    private final long maxBytes;
+    private final double tolerance;
+    private final LinkedHashMap<Key, Trajectory> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes  how much sample data the cache may hold before evicting
+     * @param tolerance inputs closer than this are treated as the same profile
+     */
+    public TrajectoryCache(long maxBytes, double tolerance){
+        if (maxBytes <= 0 || tolerance <= 0){
+            throw new IllegalArgumentException("maxBytes and tolerance must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Cached equivalent of {@link TrajectoryGenerator#generateTrajectory(double, double, double)}
+     */
+    public Trajectory getTrajectory(double acc, double maxVel, double dt, double startVel, double endVel, double distance){
+        Key key = new Key(acc, maxVel, dt, startVel, endVel, distance);
+        Trajectory trajectory = lookup(key);
+        if (trajectory == null){
+            long start = Metrics.start();
+            trajectory = new TrapezoidalProfile(acc, maxVel, dt, startVel, endVel, distance).materialize().freeze();
+            kMissTime.stop(start);
+            trajectory = insert(key, trajectory);
+        }
+        return trajectory;
+    }
+
+    /**
+     * Cached equivalent of {@link TrajectoryGenerator#generateScaledTrajectory(Trajectory, double)} on the trajectory
+     * {@link #getTrajectory(double, double, double, double, double, double)} returns for the same inputs.
+     * Scaled trajectories are views, so only the lead is actually cached and the view is made directly,
+     * without a generator.
+     */
+    public Trajectory getScaledTrajectory(double acc, double maxVel, double dt, double startVel, double endVel, double distance,
+                                          double scale){
+        return TrajectoryView.scaledPosVel(getTrajectory(acc, maxVel, dt, startVel, endVel, distance), scale);
+    }
+
+    private synchronized Trajectory lookup(Key key){
+        Trajectory trajectory = entries.get(key);
+        if (trajectory != null){
+            hits.incrementAndGet();
+            kHits.increment();
+        } else {
+            misses.incrementAndGet();
+            kMisses.increment();
+        }
+        return trajectory;
+    }
+
+    /**
+     * Generation happens outside the lock, so two callers can race on the same key. The first one in wins
+     * and both get its trajectory.
+     */
+    private synchronized Trajectory insert(Key key, Trajectory trajectory){
+        Trajectory existing = entries.get(key);
+        if (existing != null){
+            return existing;
+        }
+        entries.put(key, trajectory);
+        bytes += weigh(trajectory);
+        Iterator<Map.Entry<Key, Trajectory>> iterator = entries.entrySet().iterator();
+        //always keep the entry we just added, even if it's bigger than the whole budget
+        while (bytes > maxBytes && entries.size() > 1){
+            Map.Entry<Key, Trajectory> eldest = iterator.next();
+            bytes -= weigh(eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+            kEvictions.increment();
+        }
+        return trajectory;
+    }
+
+    private static long weigh(Trajectory trajectory){
+        return trajectory.size() * kBytesPerPoint;
+    }
+
+    public synchronized void clear(){
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getBytes(){
+        return bytes;
+    }
+
+    public long getHits(){
+        return hits.get();
+    }
+
+    public long getMisses(){
+        return misses.get();
+    }
+
+    public long getEvictions(){
+        return evictions.get();
+    }
+
+    @Override
+    public String toString(){
+        return "TrajectoryCache(entries=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ")";
+    }
+
+    private final class Key {
+        private final long acc, maxVel, dt, startVel, endVel, distance;
+
+        Key(double acc, double maxVel, double dt, double startVel, double endVel, double distance){
+            this.acc = quantize(acc);
+            this.maxVel = quantize(maxVel);
+            //dt is tiny compared to the other inputs, so it always has to match exactly
+            this.dt = Double.doubleToLongBits(dt);
+            this.startVel = quantize(startVel);
+            this.endVel = quantize(endVel);
+            this.distance = quantize(distance);
+        }
+
+        private long quantize(double value){
+            return Math.round(value / tolerance);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if (!(o instanceof Key)){
+                return false;
+            }
+            Key other = (Key) o;
+            return acc == other.acc && maxVel == other.maxVel && dt == other.dt && startVel == other.startVel
+                    && endVel == other.endVel && distance == other.distance;
+        }
+
+        @Override
+        public int hashCode(){
+            long hash = acc;
+            hash = 31 * hash + maxVel;
+            hash = 31 * hash + dt;
+            hash = 31 * hash + startVel;
+            hash = 31 * hash + endVel;
+            hash = 31 * hash + distance;
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+}
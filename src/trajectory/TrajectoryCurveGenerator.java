@@ -1,15 +1,16 @@
 package trajectory;
 
+import math.RigidTransform;
 import subsystems.PoseEstimate;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
 
 public class TrajectoryCurveGenerator {
 
     public double robotTrack = 2.4; //feet
-    private PoseEstimate poseEstimate = new PoseEstimate();
 
     TrajectoryGenerator trajectoryGenerator;
+    TrajectoryCache cache;
     Trajectory leadPath;
     Trajectory followPath;
 
@@ -17,15 +18,54 @@ public class TrajectoryCurveGenerator {
         trajectoryGenerator = new TrajectoryGenerator(acc, maxVel, dt);
     }
 
+    /**
+     * Curve generator that gets its lead and follow paths from a cache instead of regenerating them.
+     * The paths are then shared with other users of the cache and can't be modified.
+     */
+    public TrajectoryCurveGenerator(double acc, double maxVel, double dt, TrajectoryCache cache){
+        this(acc, maxVel, dt);
+        this.cache = cache;
+    }
+
     boolean right;
 
     public void generateTrajectoryCurve(double startVel, double endVel, double degrees, double turnRadius){
-        double arcLeadLength = 2 * (turnRadius + (robotTrack * 0.5)) * Math.PI * (degrees/360);
-        double followScale = (turnRadius - (robotTrack * 0.5))/((turnRadius + (robotTrack * 0.5)));
-        leadPath = trajectoryGenerator.generateTrajectory(startVel, endVel, arcLeadLength);
-        followPath = trajectoryGenerator.generateScaledTrajectory(leadPath, followScale);
+        if (cache != null){
+            TrajectoryPair curve = createTrajectoryCurve(startVel, endVel, degrees, turnRadius);
+            leadPath = curve.getLeadPath();
+            followPath = curve.getFollowPath();
+            return;
+        }
+        leadPath = trajectoryGenerator.generateTrajectory(startVel, endVel, arcLeadLength(degrees, turnRadius));
+        followPath = trajectoryGenerator.generateScaledTrajectory(leadPath, followScale(turnRadius));
+    }
+
+    /**
+     * Thread safe version of {@link #generateTrajectoryCurve(double, double, double, double)}.
+     * The paths are returned instead of stored, and nothing is printed, so one generator can be shared between threads
+     * (as long as nobody changes {@link #robotTrack} at the same time).
+     */
+    public TrajectoryPair createTrajectoryCurve(double startVel, double endVel, double degrees, double turnRadius){
+        double arcLeadLength = arcLeadLength(degrees, turnRadius);
+        double followScale = followScale(turnRadius);
+        if (cache != null){
+            double acc = trajectoryGenerator.getAcc();
+            double maxVel = trajectoryGenerator.getMaxVel();
+            double dt = trajectoryGenerator.getDt();
+            return new TrajectoryPair(cache.getTrajectory(acc, maxVel, dt, startVel, endVel, arcLeadLength),
+                    cache.getScaledTrajectory(acc, maxVel, dt, startVel, endVel, arcLeadLength, followScale));
+        }
+        Trajectory lead = trajectoryGenerator.createTrajectory(startVel, endVel, arcLeadLength);
+        return new TrajectoryPair(lead, trajectoryGenerator.generateScaledTrajectory(lead, followScale));
+    }
+
+    private double arcLeadLength(double degrees, double turnRadius){
+        return 2 * (turnRadius + (robotTrack * 0.5)) * Math.PI * (degrees/360);
     }
 
+    private double followScale(double turnRadius){
+        return (turnRadius - (robotTrack * 0.5))/((turnRadius + (robotTrack * 0.5)));
+    }
 
     public Trajectory getLeadPath() {
         return leadPath;
@@ -37,52 +77,73 @@ public class TrajectoryCurveGenerator {
 
 
     public void plot(){
-        ArrayList<Trajectory.Point> leftPoints;
-        ArrayList<Trajectory.Point> rightPoints;
-        ArrayList<Trajectory.Point> leadPoints = getLeadPath().points;;
-        ArrayList<Trajectory.Point> followPoints = getFollowPath().points;;
-
-
-        if (right) {
-            leftPoints = getLeadPath().points;
-            rightPoints = getFollowPath().points;
-        } else {
-            rightPoints = getLeadPath().points;
-            leftPoints = getFollowPath().points;
+        plot(System.out);
+    }
+
+    /**
+     * Prints the predicted pose at every point of the current curve
+     */
+    public void plot(PrintStream out){
+        PoseTrack track = computePoseTrack(new TrajectoryPair(getLeadPath(), getFollowPath()), right, robotTrack, new PoseTrack(getLeadPath().size()));
+        for (int i = 0; i < track.size(); i++){
+            out.println(track.getPose(i));
         }
+    }
 
-        double prevFollowPos = 0;
-
-        for (int i = 0; i < leadPoints.size(); i++){
-            double currLeftPos;
-            double currRightPos;
-            double currLeadPos = leadPoints.get(i).getPos();
-            double currFollowPos;
-            try {
-                currFollowPos = followPoints.get(i).getPos();
-            } catch (Exception IndexOutOfBoundsException){
-                currFollowPos = prevFollowPos;
-            }
-            try {
-                currLeftPos = leftPoints.get(i).getPos();
-            } catch (Exception IndexOutOfBoundsException){
-                currLeftPos = prevFollowPos;
-            }
-            try {
-                currRightPos = rightPoints.get(i).getPos();
-            } catch (Exception IndexOutOfBoundsException){
-                currRightPos = prevFollowPos;
-            }
-
-            double innerRadius = robotTrack * currFollowPos / (currLeadPos - currFollowPos);
-            double angle = currFollowPos * 180 / (Math.PI * innerRadius);
-
-
-            poseEstimate.update(currLeftPos, currRightPos, angle);
-            System.out.println(poseEstimate.getPose());
-
-            prevFollowPos = currFollowPos;
+    /**
+     * Predicts how the robot drives a curve, without printing anything.
+     *
+     * One pass over the lead/follow paths works out the left/right wheel paths and the heading, and feeds them through
+     * an allocation free {@link PoseEstimate}. The paths should be the same length, but shorter ones are clamped to
+     * their last point, and an empty follow path is read as standing still.
+     *
+     * @param right whether the curve turns right (the lead path is on the left)
+     * @param out   track to fill, it is cleared first
+     * @return out
+     */
+    public static PoseTrack computePoseTrack(TrajectoryPair curve, boolean right, double robotTrack, PoseTrack out){
+        Trajectory leadPath = curve.getLeadPath();
+        Trajectory followPath = curve.getFollowPath();
+        Trajectory leftPath = right ? leadPath : followPath;
+        Trajectory rightPath = right ? followPath : leadPath;
+        //left turns are counterclockwise (positive), right turns clockwise
+        double direction = right ? -1 : 1;
+        //the only division, once per curve instead of once per point
+        double degreesPerDistance = direction * degreesPerDistance(robotTrack);
+        PoseEstimate poseEstimate = new PoseEstimate(true);
+        RigidTransform pose = poseEstimate.getPose();
+
+        int size = leadPath.size();
+        out.clear();
+        out.ensureCapacity(size);
+        for (int i = 0; i < size; i++){
+            double leftPos = leftPath.getPosClamped(i);
+            double rightPos = rightPath.getPosClamped(i);
+            double angle = headingDegrees(leadPath.getPos(i), followPath.getPosClamped(i), degreesPerDistance);
+            poseEstimate.update(leftPos, rightPos, angle);
+            out.add(leadPath.getTime(i), leftPos, rightPos, leftPath.getVelClamped(i), rightPath.getVelClamped(i),
+                    pose.getTranslation().x(), pose.getTranslation().y(), pose.getRotation().radians());
         }
+        return out;
+    }
+
+    /**
+     * Heading (degrees) the robot has turned through once the lead and follow wheels have driven the given distances.
+     * The follow wheels ride on the inner radius r = robotTrack * follow / (lead - follow), so the angle is
+     * follow / r, which simplifies to (lead - follow) / robotTrack. That stays defined when the follow wheels haven't
+     * moved, and with the 1 / robotTrack factor worked out once per curve it's a single multiply per point.
+     *
+     * @param degreesPerDistance {@link #degreesPerDistance(double)}, negated for right turns
+     */
+    static double headingDegrees(double leadPos, double followPos, double degreesPerDistance){
+        return (leadPos - followPos) * degreesPerDistance;
+    }
+
+    /**
+     * Degrees turned per unit of distance the lead wheels get ahead of the follow wheels
+     */
+    static double degreesPerDistance(double robotTrack){
+        return 180 / (Math.PI * robotTrack);
     }
 
     public static void main (String [] args){
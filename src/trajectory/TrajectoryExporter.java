@@ -0,0 +1,214 @@
+package trajectory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams trajectories out as CSV in linear time.
+ *
+ * Rows are formatted into a fixed size char buffer that is flushed to the writer whenever it fills up, so
+ * even huge trajectories never have their whole text in memory. Pick the columns (and their order) with the
+ * constructor, and the number of decimals with {@link #setPrecision(int)}.
+ */
+public class TrajectoryExporter {
+
+    public enum Column {
+        POS("Pos"), VEL("Vel"), ACC("Acc"), TIME("Time"),
+        //the columns below only exist for curves, see exportCurve
+        LEFT_POS("LeftPos"), LEFT_VEL("LeftVel"), RIGHT_POS("RightPos"), RIGHT_VEL("RightVel"),
+        X("X"), Y("Y"), HEADING("Heading");
+
+        private final String header;
+
+        Column(String header){
+            this.header = header;
+        }
+
+        public String getHeader(){
+            return header;
+        }
+
+        boolean isCurveColumn(){
+            return ordinal() >= LEFT_POS.ordinal();
+        }
+    }
+
+    private static final int kBufferSize = 8192;
+    //longest number we ever write: sign, 19 digits of a long, the point and some slack
+    private static final int kMaxNumberChars = 32;
+    private static final int kMaxPrecision = 15;
+
+    private final Column[] columns;
+    private int precision = -1;
+    private final char[] buffer = new char[kBufferSize];
+    private int length;
+    private final double[] values = new double[Column.values().length];
+    //reused by exportCurve, so exporting many curves doesn't allocate a track each time
+    private final PoseTrack poseTrack = new PoseTrack(0);
+
+    public TrajectoryExporter(Column... columns){
+        if (columns.length == 0){
+            throw new IllegalArgumentException("Need at least one column");
+        }
+        this.columns = columns.clone();
+    }
+
+    /**
+     * @param precision number of decimals to write, or -1 to write every value exactly (like {@link Double#toString(double)})
+     */
+    public TrajectoryExporter setPrecision(int precision){
+        if (precision < -1 || precision > kMaxPrecision){
+            throw new IllegalArgumentException("Precision must be between -1 and " + kMaxPrecision);
+        }
+        this.precision = precision;
+        return this;
+    }
+
+    public void export(Trajectory trajectory, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        export(trajectory, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes a header row and then one row per point. Only the POS, VEL, ACC and TIME columns can be used here.
+     */
+    public void export(Trajectory trajectory, Writer out) throws IOException {
+        for (Column column : columns){
+            if (column.isCurveColumn()){
+                throw new IllegalArgumentException(column + " is only available for curves");
+            }
+        }
+        length = 0;
+        writeHeader(out);
+        for (int i = 0; i < trajectory.size(); i++){
+            readPath(trajectory, i);
+            writeRow(out);
+        }
+        flush(out);
+    }
+
+    public void exportCurve(TrajectoryPair curve, boolean right, double robotTrack, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        exportCurve(curve, right, robotTrack, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes a curve the way {@link TrajectoryCurveGenerator#plot()} walks it, with the pose track from
+     * {@link TrajectoryCurveGenerator#computePoseTrack(TrajectoryPair, boolean, double, PoseTrack)}.
+     * POS, VEL, ACC and TIME are the lead path, the left/right columns are the wheel paths, and X, Y and HEADING
+     * (degrees) are the predicted pose.
+     *
+     * @param right whether the curve turns right (the lead path is on the left)
+     */
+    public void exportCurve(TrajectoryPair curve, boolean right, double robotTrack, Writer out) throws IOException {
+        exportCurve(curve, TrajectoryCurveGenerator.computePoseTrack(curve, right, robotTrack, poseTrack), out);
+    }
+
+    /**
+     * Same as {@link #exportCurve(TrajectoryPair, boolean, double, Writer)} for a pose track that was already computed
+     *
+     * @param track pose track of the curve, one entry per lead path point
+     */
+    public void exportCurve(TrajectoryPair curve, PoseTrack track, Writer out) throws IOException {
+        Trajectory lead = curve.getLeadPath();
+        if (track.size() != lead.size()){
+            throw new IllegalArgumentException("Pose track has " + track.size() + " points, lead path has " + lead.size());
+        }
+        length = 0;
+        writeHeader(out);
+        for (int i = 0; i < lead.size(); i++){
+            readPath(lead, i);
+            values[Column.LEFT_POS.ordinal()] = track.getLeft(i);
+            values[Column.LEFT_VEL.ordinal()] = track.getLeftVel(i);
+            values[Column.RIGHT_POS.ordinal()] = track.getRight(i);
+            values[Column.RIGHT_VEL.ordinal()] = track.getRightVel(i);
+            values[Column.X.ordinal()] = track.getX(i);
+            values[Column.Y.ordinal()] = track.getY(i);
+            values[Column.HEADING.ordinal()] = Math.toDegrees(track.getHeading(i));
+            writeRow(out);
+        }
+        flush(out);
+    }
+
+    private void readPath(Trajectory trajectory, int index){
+        values[Column.POS.ordinal()] = trajectory.getPos(index);
+        values[Column.VEL.ordinal()] = trajectory.getVel(index);
+        values[Column.ACC.ordinal()] = trajectory.getAcc(index);
+        values[Column.TIME.ordinal()] = trajectory.getTime(index);
+    }
+
+    private void writeHeader(Writer out) throws IOException {
+        for (int i = 0; i < columns.length; i++){
+            if (i > 0){
+                append(out, ',');
+            }
+            String header = columns[i].getHeader();
+            for (int j = 0; j < header.length(); j++){
+                append(out, header.charAt(j));
+            }
+        }
+        append(out, '\n');
+    }
+
+    private void writeRow(Writer out) throws IOException {
+        for (int i = 0; i < columns.length; i++){
+            if (i > 0){
+                append(out, ',');
+            }
+            appendNumber(out, values[columns[i].ordinal()]);
+        }
+        append(out, '\n');
+    }
+
+    private void append(Writer out, char c) throws IOException {
+        if (length == buffer.length){
+            flush(out);
+        }
+        buffer[length++] = c;
+    }
+
+    /**
+     * Writes a number with the configured precision without going through String.format
+     */
+    private void appendNumber(Writer out, double value) throws IOException {
+        double scale = precision < 0 ? 0 : Math.pow(10, precision);
+        if (precision < 0 || Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value * scale) >= Long.MAX_VALUE){
+            String text = Double.toString(value);
+            for (int i = 0; i < text.length(); i++){
+                append(out, text.charAt(i));
+            }
+            return;
+        }
+        if (buffer.length - length < kMaxNumberChars + 1){
+            flush(out);
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0){
+            buffer[length++] = '-';
+        }
+        //write the digits backwards into the end of the buffer space, then the decimal point in the right spot
+        int end = length + kMaxNumberChars;
+        int position = end;
+        int digits = 0;
+        do {
+            buffer[--position] = (char)('0' + scaled % 10);
+            scaled /= 10;
+            digits++;
+            if (digits == precision){
+                buffer[--position] = '.';
+            }
+        } while (scaled != 0 || digits <= precision);
+        System.arraycopy(buffer, position, buffer, length, end - position);
+        length += end - position;
+    }
+
+    private void flush(Writer out) throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+}
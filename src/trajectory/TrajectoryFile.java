@@ -0,0 +1,167 @@
+package trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+
+/**
+ * Binary file format for a {@link RouteLibrary}, so the robot can open prebuilt routes at startup
+ * instead of regenerating them.
+ *
+ * Layout (all little-endian):
+ *      header:      int magic ("TRAJ"), int version, int routeCount, int reserved
+ *      route table: routeCount * (long leadOffset, long followOffset, int leadSize, int followSize)
+ *      columns:     for every distinct trajectory, size doubles each of pos, vel, acc and time
+ *
+ * Offsets are in bytes from the start of the file. A trajectory used more than once (the lead and follow path of a
+ * straight route, or paths shared through a {@link TrajectoryCache}) is only stored once.
+ *
+ * {@link #open(Path)} memory maps the file and hands out trajectories that read straight from the mapping.
+ */
+public class TrajectoryFile {
+
+    public static final int kMagic = 0x4A415254; //"TRAJ" read as little-endian
+    public static final int kVersion = 1;
+
+    private static final int kHeaderBytes = 16;
+    private static final int kRouteBytes = 24;
+
+    public static void write(Path file, RouteLibrary library) throws IOException {
+        //lay out the file first, so the route table can be written in one go
+        IdentityHashMap<Trajectory, Long> offsets = new IdentityHashMap<>();
+        long offset = kHeaderBytes + (long) library.size() * kRouteBytes;
+        for (int i = 0; i < library.size(); i++){
+            for (Trajectory trajectory : paths(library.get(i))){
+                if (!offsets.containsKey(trajectory)){
+                    offsets.put(trajectory, offset);
+                    offset += trajectory.size() * 32L;
+                }
+            }
+        }
+        if (offset > Integer.MAX_VALUE){
+            throw new IOException("Route library is too big for one file (" + offset + " bytes)");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(kMagic).putInt(kVersion).putInt(library.size()).putInt(0);
+            for (int i = 0; i < library.size(); i++){
+                ensureRemaining(channel, buffer, kRouteBytes);
+                TrajectoryPair route = library.get(i);
+                buffer.putLong(offsets.get(route.getLeadPath())).putLong(offsets.get(route.getFollowPath()))
+                        .putInt(route.getLeadPath().size()).putInt(route.getFollowPath().size());
+            }
+
+            IdentityHashMap<Trajectory, Boolean> written = new IdentityHashMap<>();
+            for (int i = 0; i < library.size(); i++){
+                for (Trajectory trajectory : paths(library.get(i))){
+                    if (written.put(trajectory, Boolean.TRUE) != null){
+                        continue;
+                    }
+                    int size = trajectory.size();
+                    for (int j = 0; j < size; j++){
+                        ensureRemaining(channel, buffer, 8);
+                        buffer.putDouble(trajectory.getPos(j));
+                    }
+                    for (int j = 0; j < size; j++){
+                        ensureRemaining(channel, buffer, 8);
+                        buffer.putDouble(trajectory.getVel(j));
+                    }
+                    for (int j = 0; j < size; j++){
+                        ensureRemaining(channel, buffer, 8);
+                        buffer.putDouble(trajectory.getAcc(j));
+                    }
+                    for (int j = 0; j < size; j++){
+                        ensureRemaining(channel, buffer, 8);
+                        buffer.putDouble(trajectory.getTime(j));
+                    }
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Memory maps a route library. The file stays mapped for as long as any of its trajectories are reachable.
+     *
+     * @throws IOException if the file can't be read, or its header or route table don't fit the file
+     */
+    public static RouteLibrary open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Route library file is too big (" + channel.size() + " bytes)");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < kHeaderBytes || buffer.getInt(0) != kMagic){
+            throw new IOException("Not a trajectory file");
+        }
+        if (buffer.getInt(4) != kVersion){
+            throw new IOException("Unsupported trajectory file version " + buffer.getInt(4));
+        }
+
+        int routeCount = buffer.getInt(8);
+        long columnsStart = kHeaderBytes + (long) routeCount * kRouteBytes;
+        if (routeCount < 0 || columnsStart > buffer.limit()){
+            throw new IOException("Trajectory file is truncated or corrupt: " + routeCount + " routes don't fit in "
+                    + buffer.limit() + " bytes");
+        }
+        TrajectoryPair[] routes = new TrajectoryPair[routeCount];
+        for (int i = 0; i < routeCount; i++){
+            int entry = kHeaderBytes + i * kRouteBytes;
+            long leadOffset = buffer.getLong(entry);
+            long followOffset = buffer.getLong(entry + 8);
+            int leadSize = buffer.getInt(entry + 16);
+            int followSize = buffer.getInt(entry + 20);
+            Trajectory lead = map(buffer, columnsStart, leadOffset, leadSize, i);
+            Trajectory follow;
+            if (followOffset == leadOffset){
+                if (followSize != leadSize){
+                    throw new IOException("Trajectory file is corrupt: route " + i + " shares one path with two sizes");
+                }
+                follow = lead;
+            } else {
+                follow = map(buffer, columnsStart, followOffset, followSize, i);
+            }
+            routes[i] = new TrajectoryPair(lead, follow);
+        }
+        return new RouteLibrary(routes);
+    }
+
+    /**
+     * @param columnsStart where the route table ends, columns can't start before it
+     */
+    private static Trajectory map(ByteBuffer buffer, long columnsStart, long offset, int size, int route) throws IOException {
+        if (offset < columnsStart || offset > buffer.limit() || size < 0 || size * 32L > buffer.limit() - offset){
+            throw new IOException("Trajectory file is truncated or corrupt: route " + route + " has " + size
+                    + " points at byte " + offset + ", outside the columns (bytes " + columnsStart + " to " + buffer.limit() + ")");
+        }
+        return new MappedTrajectory(buffer, (int) offset, size);
+    }
+
+    private static Trajectory[] paths(TrajectoryPair route){
+        return new Trajectory[]{route.getLeadPath(), route.getFollowPath()};
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes){
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
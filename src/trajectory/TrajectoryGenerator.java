@@ -1,6 +1,13 @@
 package trajectory;
 
+import metrics.Histogram;
+import metrics.Metrics;
+
 public class TrajectoryGenerator {
+    private static final Histogram kGenerateTime = Metrics.histogram("TrajectoryGenerator.generateTrajectory");
+    private static final Histogram kCreateTime = Metrics.histogram("TrajectoryGenerator.createTrajectory");
+    private static final Histogram kScaledTime = Metrics.histogram("TrajectoryGenerator.generateScaledTrajectory", 16);
+
     private double acc = 12;
     private double maxVel = 12; //physical limitations of robot
     private double cruiseVel = maxVel; //velocity that is set
@@ -14,63 +21,60 @@ public class TrajectoryGenerator {
         this.dt = dt;
     }
 
-    public Trajectory generateTrajectory(double startVel, double endVel, double distance){
-        cruiseVel = Math.min(Math.sqrt((distance * acc) + ((Math.pow(startVel, 2) + Math.pow(endVel, 2))/2)), maxVel);
-        double accelTime = (cruiseVel - startVel)/acc;
-        double decelTime = Math.abs(cruiseVel - endVel)/acc;
-        accelDistance = startVel * accelTime + (0.5 * acc * Math.pow(accelTime, 2));
-        decelDistance = cruiseVel * decelTime - (0.5 * acc * Math.pow(decelTime, 2));
-        cruiseDistance = distance - accelDistance - decelDistance;
-        double cruiseTime = cruiseDistance/ cruiseVel;
-        double totalTime = accelTime + decelTime + cruiseTime;
-        int size = (int)(totalTime/dt);
-        Trajectory trajectory = new Trajectory(size);
-        double currTime = 0;
-        System.out.println(acc);
-        System.out.println((cruiseVel-startVel)/(accelTime));
-        for (int i = 0; i < size; i++){
-            double currPos, currVel, currAccel;
-            if (currTime <= accelTime){
-                currAccel = acc;
-                currPos = startVel * currTime + (0.5 * acc * Math.pow(currTime, 2));
-                currVel = startVel + (currAccel * currTime);
-            }
-
-            else if (currTime > accelTime && currTime < (accelTime + cruiseTime)){
-                currPos = accelDistance + (cruiseVel * (currTime - accelTime));
-                currVel = cruiseVel;
-                currAccel = 0;
+    public double getAcc(){
+        return acc;
+    }
 
-            }
+    public double getMaxVel(){
+        return maxVel;
+    }
 
-            else {
-                double tempCurrTime = currTime - (accelTime + cruiseTime);
-                double adjustedCurrTime = totalTime - accelTime - cruiseTime - tempCurrTime;
-                double adjustedCurrPos = endVel * adjustedCurrTime + 0.5 * acc * Math.pow(adjustedCurrTime, 2);
-                currAccel = -acc;
-                currPos = distance - adjustedCurrPos;
-                currVel = cruiseVel + (currAccel * tempCurrTime);
-            }
-            currTime += dt;
+    public double getDt(){
+        return dt;
+    }
 
-            Trajectory.Point point = new Trajectory.Point(currPos, currVel, currAccel, currTime);
-            trajectory.addPoint(i, point);
-        }
+    public Trajectory generateTrajectory(double startVel, double endVel, double distance){
+        long start = Metrics.start();
+        TrapezoidalProfile profile = generateProfile(startVel, endVel, distance);
+        Trajectory trajectory = profile.materialize();
+        kGenerateTime.stop(start);
+        return trajectory;
+    }
 
+    /**
+     * Thread safe version of {@link #generateTrajectory(double, double, double)}: it doesn't update
+     * the accel/cruise/decel fields, so one generator can be shared between threads.
+     */
+    public Trajectory createTrajectory(double startVel, double endVel, double distance){
+        long start = Metrics.start();
+        Trajectory trajectory = new TrapezoidalProfile(acc, maxVel, dt, startVel, endVel, distance).materialize();
+        kCreateTime.stop(start);
         return trajectory;
     }
 
-    public Trajectory generateScaledTrajectory(Trajectory leadTrajectory, double scale){
-        Trajectory followTrajectory = new Trajectory(leadTrajectory.points.size());
-        for (int i = 0; i < leadTrajectory.points.size(); i++){
-            Trajectory.Point leadPoint = leadTrajectory.points.get(i);
-            double followPosition = scale * leadPoint.getPos();
-            double followVel = scale * leadPoint.getVel();
-            Trajectory.Point followPoint = new Trajectory.Point(followPosition, followVel, leadPoint.getAcc(), leadPoint.getTime());
-            followTrajectory.addPoint(i, followPoint);
-        }
+    /**
+     * Same profile as {@link #generateTrajectory(double, double, double)}, but only the segment parameters are kept
+     * and points are computed when they are read. Use {@link TrapezoidalProfile#materialize()} to get arrays.
+     */
+    public TrapezoidalProfile generateProfile(double startVel, double endVel, double distance){
+        TrapezoidalProfile profile = new TrapezoidalProfile(acc, maxVel, dt, startVel, endVel, distance);
+        cruiseVel = profile.getCruiseVel();
+        accelDistance = profile.getAccelDistance();
+        decelDistance = profile.getDecelDistance();
+        cruiseDistance = profile.getCruiseDistance();
+        return profile;
+    }
 
-        return followTrajectory;
+    /**
+     * Follow path for a lead path: pos and vel are multiplied by scale, acc and time are the lead's.
+     * The result is a {@link TrajectoryView} over the lead, so this is O(1) and stores no points;
+     * call {@link Trajectory#copy()} on it if an independent trajectory is needed.
+     */
+    public Trajectory generateScaledTrajectory(Trajectory leadTrajectory, double scale){
+        long start = kScaledTime.start();
+        Trajectory trajectory = TrajectoryView.scaledPosVel(leadTrajectory, scale);
+        kScaledTime.stop(start);
+        return trajectory;
     }
 
     public static void main (String [] args){
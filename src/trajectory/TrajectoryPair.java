@@ -0,0 +1,29 @@
+package trajectory;
+
+/**
+ * Lead and follow paths of a differential drive move.
+ * The lead path is driven by the outside wheels of a turn, the follow path by the inside ones.
+ * For a straight move both are the same trajectory.
+ */
+public class TrajectoryPair {
+
+    private final Trajectory leadPath;
+    private final Trajectory followPath;
+
+    public TrajectoryPair(Trajectory leadPath, Trajectory followPath){
+        this.leadPath = leadPath;
+        this.followPath = followPath;
+    }
+
+    public Trajectory getLeadPath(){
+        return leadPath;
+    }
+
+    public Trajectory getFollowPath(){
+        return followPath;
+    }
+
+    public boolean isStraight(){
+        return leadPath == followPath;
+    }
+}
@@ -0,0 +1,77 @@
+package trajectory;
+
+/**
+ * Read-only trajectory computed on access from another one:
+ *      pos = base pos * posScale + posOffset
+ *      vel = base vel * velScale
+ *      acc = base acc * accScale
+ *      time = base time + timeShift
+ *
+ * Creating a view is O(1) and stores no points. A view of a view is collapsed into a single view of the
+ * underlying trajectory, so reads never go through more than one level. Changes to a base that isn't
+ * frozen show up in its views; use {@link #copy()} to get an independent array backed trajectory.
+ */
+public class TrajectoryView extends Trajectory {
+
+    private final Trajectory base;
+    private final double posScale, posOffset, velScale, accScale, timeShift;
+
+    public TrajectoryView(Trajectory base, double posScale, double posOffset, double velScale, double accScale, double timeShift){
+        super(0);
+        if (base instanceof TrajectoryView){
+            TrajectoryView view = (TrajectoryView) base;
+            posOffset += view.posOffset * posScale;
+            posScale *= view.posScale;
+            velScale *= view.velScale;
+            accScale *= view.accScale;
+            timeShift += view.timeShift;
+            base = view.base;
+        }
+        this.base = base;
+        this.posScale = posScale;
+        this.posOffset = posOffset;
+        this.velScale = velScale;
+        this.accScale = accScale;
+        this.timeShift = timeShift;
+        freeze();
+    }
+
+    /**
+     * Follow path view: pos and vel multiplied by scale, acc and time unchanged.
+     * Not the same as {@link Trajectory#scaled(double)}, which scales acc too (the physically consistent follow path).
+     * The generators have always handed out follow paths that carry the lead's acc, so exported Acc columns and
+     * route files hold the lead's values; this keeps that behaviour under its own name.
+     */
+    public static TrajectoryView scaledPosVel(Trajectory base, double scale){
+        return new TrajectoryView(base, scale, 0, scale, 1, 0);
+    }
+
+    public Trajectory getBase(){
+        return base;
+    }
+
+    @Override
+    public int size(){
+        return base.size();
+    }
+
+    @Override
+    public double getPos(int index){
+        return base.getPos(index) * posScale + posOffset;
+    }
+
+    @Override
+    public double getVel(int index){
+        return base.getVel(index) * velScale;
+    }
+
+    @Override
+    public double getAcc(int index){
+        return base.getAcc(index) * accScale;
+    }
+
+    @Override
+    public double getTime(int index){
+        return base.getTime(index) + timeShift;
+    }
+}
@@ -0,0 +1,311 @@
+package trajectory;
+
+/**
+ * Trajectory that only stores the accel/cruise/decel segments of a trapezoidal profile
+ * and evaluates pos/vel/acc in closed form whenever a value is asked for.
+ *
+ * Creating one is constant time and constant memory no matter how long the profile is,
+ * which makes it cheap to plan lots of candidate routes and only {@link #materialize()} the one we drive.
+ *
+ * Point i has the same meaning as in {@link TrajectoryGenerator#generateTrajectory(double, double, double)}:
+ * the state at time i*dt, stamped with the end of that period ((i+1)*dt).
+ */
+public class TrapezoidalProfile extends Trajectory {
+
+    private final double dt;
+    private final Segments segments;
+    private final int size;
+
+    public TrapezoidalProfile(double acc, double maxVel, double dt, double startVel, double endVel, double distance){
+        super(0);
+        this.dt = dt;
+        segments = new Segments().set(acc, maxVel, startVel, endVel, distance);
+        size = (int)(segments.totalTime/dt);
+    }
+
+    public double getCruiseVel(){
+        return segments.cruiseVel;
+    }
+
+    public double getAccelDistance(){
+        return segments.accelDistance;
+    }
+
+    public double getCruiseDistance(){
+        return segments.cruiseDistance;
+    }
+
+    public double getDecelDistance(){
+        return segments.decelDistance;
+    }
+
+    public double getAccelTime(){
+        return segments.accelTime;
+    }
+
+    public double getTotalTime(){
+        return segments.totalTime;
+    }
+
+    public double getDt(){
+        return dt;
+    }
+
+    /**
+     * Position at time t (seconds from the start of the profile)
+     * Before the start this is 0, after the end it is the full distance.
+     */
+    public double getPosAt(double t){
+        return segments.getPosAt(t);
+    }
+
+    /**
+     * Velocity at time t (seconds from the start of the profile)
+     */
+    public double getVelAt(double t){
+        return segments.getVelAt(t);
+    }
+
+    /**
+     * Acceleration at time t (seconds from the start of the profile)
+     */
+    public double getAccAt(double t){
+        return segments.getAccAt(t);
+    }
+
+    /**
+     * Evaluates the profile exactly at any time, not just multiples of dt (no interpolation needed).
+     * t is on the same clock as {@link #getTime(int)}, {@link #indexAt(double)} and {@link Cursor}: point i is
+     * stamped (i+1)*dt and holds the state at i*dt, so the profile is read one period earlier than t, and clamped to
+     * the first/last point like the inherited lookups. Pos and vel match {@link Cursor#moveTo(double)} up to its
+     * interpolation error; acc steps where the segments meet instead of ramping over one period.
+     *
+     * @param t time in seconds, stamped like {@link #getTime(int)}
+     * @return the state of the profile at that time, or null if the profile has no points
+     */
+    @Override
+    public Point sample(double t){
+        if (size == 0){
+            return null;
+        }
+        double profileTime = Math.min(Math.max(t - dt, 0), (size - 1) * dt);
+        return new Point(getPosAt(profileTime), getVelAt(profileTime), getAccAt(profileTime), t);
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public double getPos(int index){
+        checkIndex(index);
+        return getPosAt(index * dt);
+    }
+
+    @Override
+    public double getVel(int index){
+        checkIndex(index);
+        return getVelAt(index * dt);
+    }
+
+    @Override
+    public double getAcc(int index){
+        checkIndex(index);
+        return getAccAt(index * dt);
+    }
+
+    @Override
+    public double getTime(int index){
+        checkIndex(index);
+        return (index + 1) * dt;
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return true;
+    }
+
+    @Override
+    public void addPoint(double pos, double vel, double acc, double time){
+        throw new UnsupportedOperationException("TrapezoidalProfile is computed, points can't be added");
+    }
+
+    @Override
+    public void addPoint(int index, Point point){
+        throw new UnsupportedOperationException("TrapezoidalProfile is computed, points can't be added");
+    }
+
+    /**
+     * Same as {@link #materialize()}, but overwrites out instead of allocating a new trajectory.
+     * Basically for splicing a profile onto the end of a move that's already in progress: posOffset is added to
+     * every position and timeOffset to every time.
+     *
+     * @param out trajectory to clear and refill, can't be frozen
+     * @return out
+     */
+    public Trajectory materializeInto(Trajectory out, double posOffset, double timeOffset){
+        return segments.sampleInto(out, dt, posOffset, timeOffset);
+    }
+
+    /**
+     * Samples this profile every dt into a regular array backed {@link Trajectory}
+     */
+    public Trajectory materialize(){
+        return materialize(dt);
+    }
+
+    /**
+     * Samples this profile at a different period than the one it was created with
+     * @param dt period to sample at
+     * @return array backed trajectory holding every sample
+     */
+    public Trajectory materialize(double dt){
+        return segments.sampleInto(new Trajectory((int)(segments.totalTime/dt)), dt, 0, 0);
+    }
+
+    /**
+     * The segment math behind a profile, without the {@link Trajectory} around it.
+     * Mutable, so a planner that makes a new profile every control period (like {@link Replanner}) can reuse one
+     * instead of allocating.
+     */
+    static final class Segments {
+        private static final double kEpsilon = 1E-9;
+
+        private double acc;
+        private double startVel;
+        private double endVel;
+        private double distance;
+
+        double cruiseVel;
+        double accelTime, cruiseTime, decelTime, totalTime;
+        double accelDistance, cruiseDistance, decelDistance;
+
+        Segments set(double acc, double maxVel, double startVel, double endVel, double distance){
+            this.acc = acc;
+            this.startVel = startVel;
+            this.endVel = endVel;
+            this.distance = distance;
+
+            cruiseVel = Math.min(Math.sqrt((distance * acc) + ((Math.pow(startVel, 2) + Math.pow(endVel, 2))/2)), maxVel);
+            accelTime = (cruiseVel - startVel)/acc;
+            decelTime = Math.abs(cruiseVel - endVel)/acc;
+            accelDistance = startVel * accelTime + (0.5 * acc * Math.pow(accelTime, 2));
+            decelDistance = cruiseVel * decelTime - (0.5 * acc * Math.pow(decelTime, 2));
+            cruiseDistance = distance - accelDistance - decelDistance;
+            cruiseTime = cruiseDistance/ cruiseVel;
+            totalTime = accelTime + decelTime + cruiseTime;
+            return this;
+        }
+
+        /**
+         * @return false if startVel can't be changed into endVel within the distance at this acceleration,
+         *         the segments are meaningless then
+         */
+        boolean isFeasible(){
+            return cruiseVel >= startVel - kEpsilon && cruiseVel >= endVel - kEpsilon;
+        }
+
+        /**
+         * Best effort for when {@link #isFeasible()} is false: a single ramp at acc from startVel towards endVel.
+         * Braking reaches endVel past the distance, speeding up reaches the distance below endVel.
+         */
+        Segments setRamp(double acc, double startVel, double endVel, double distance){
+            this.acc = acc;
+            this.startVel = startVel;
+            cruiseTime = 0;
+            cruiseDistance = 0;
+            if (startVel > endVel){
+                cruiseVel = startVel;
+                accelTime = 0;
+                accelDistance = 0;
+                decelTime = (startVel - endVel)/acc;
+                decelDistance = cruiseVel * decelTime - (0.5 * acc * Math.pow(decelTime, 2));
+                this.endVel = endVel;
+                this.distance = decelDistance;
+            } else {
+                cruiseVel = Math.sqrt(Math.pow(startVel, 2) + 2 * acc * Math.max(distance, 0));
+                accelTime = (cruiseVel - startVel)/acc;
+                accelDistance = Math.max(distance, 0);
+                decelTime = 0;
+                decelDistance = 0;
+                this.endVel = cruiseVel;
+                this.distance = accelDistance;
+            }
+            totalTime = accelTime + decelTime;
+            return this;
+        }
+
+        /**
+         * Clears out and samples the segments into it every dt
+         *
+         * @param timeOffset point i (the state at i*dt) is stamped timeOffset + (i+1)*dt
+         * @return out
+         */
+        Trajectory sampleInto(Trajectory out, double dt, double posOffset, double timeOffset){
+            out.clear();
+            int count = (int)(totalTime/dt);
+            for (int i = 0; i < count; i++){
+                double t = i * dt;
+                out.addPoint(posOffset + getPosAt(t), getVelAt(t), getAccAt(t), timeOffset + (i + 1) * dt);
+            }
+            return out;
+        }
+
+        /**
+         * Position at time t (seconds from the start of the profile)
+         * Before the start this is 0, after the end it is the full distance.
+         */
+        double getPosAt(double t){
+            if (t < 0){
+                return 0;
+            }
+            if (t > totalTime){
+                return distance;
+            }
+            if (t <= accelTime){
+                return startVel * t + (0.5 * acc * Math.pow(t, 2));
+            }
+            if (t < accelTime + cruiseTime){
+                return accelDistance + (cruiseVel * (t - accelTime));
+            }
+            double adjustedTime = totalTime - t;
+            return distance - (endVel * adjustedTime + 0.5 * acc * Math.pow(adjustedTime, 2));
+        }
+
+        /**
+         * Velocity at time t (seconds from the start of the profile)
+         */
+        double getVelAt(double t){
+            if (t < 0){
+                return startVel;
+            }
+            if (t > totalTime){
+                return endVel;
+            }
+            if (t <= accelTime){
+                return startVel + (acc * t);
+            }
+            if (t < accelTime + cruiseTime){
+                return cruiseVel;
+            }
+            return cruiseVel - (acc * (t - (accelTime + cruiseTime)));
+        }
+
+        /**
+         * Acceleration at time t (seconds from the start of the profile)
+         */
+        double getAccAt(double t){
+            if (t < 0 || t > totalTime){
+                return 0;
+            }
+            if (t <= accelTime){
+                return acc;
+            }
+            if (t < accelTime + cruiseTime){
+                return 0;
+            }
+            return -acc;
+        }
+    }
+}